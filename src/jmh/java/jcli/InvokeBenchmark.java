@@ -0,0 +1,78 @@
+package jcli;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Jcli#invoke} throughput on one thread and on every core, for a static
+ * method ({@code Math.max}), a factory-built receiver ({@code LocalDate.parse})
+ * and a constructor-built one ({@code BigDecimal}). With lock-free lookups the
+ * all-cores score should grow with the core count.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InvokeBenchmark {
+
+    private final String[] maxArgs = { "10", "20" };
+    private final String[] plusDaysArgs = { "2024-01-31", "30" };
+    private final String[] movePointArgs = { "3.14159265358979", "4" };
+
+    @Setup
+    public void setup() {
+        // Loads the classes and resolves the plans outside the measurement
+        staticMethod();
+        factoryReceiver();
+        constructorReceiver();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Object staticMethod() {
+        return Jcli.invoke("Math", "max", maxArgs);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Object staticMethodAllCores() {
+        return Jcli.invoke("Math", "max", maxArgs);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Object factoryReceiver() {
+        return Jcli.invoke("LocalDate", "plusDays", plusDaysArgs);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Object factoryReceiverAllCores() {
+        return Jcli.invoke("LocalDate", "plusDays", plusDaysArgs);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Object constructorReceiver() {
+        return Jcli.invoke("BigDecimal", "movePointLeft", movePointArgs);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Object constructorReceiverAllCores() {
+        return Jcli.invoke("BigDecimal", "movePointLeft", movePointArgs);
+    }
+}
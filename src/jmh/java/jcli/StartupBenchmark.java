@@ -0,0 +1,40 @@
+package jcli;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import picocli.CommandLine;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building the picocli command tree: every indexed command (what {@code -h}
+ * and unknown names pay) versus the single-subcommand fast path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StartupBenchmark {
+
+    private final String[] fullTreeArgs = { "--help" };
+    private final String[] fastPathArgs = { "LocalDate", "now" };
+
+    @Benchmark
+    public CommandLine createFullCommandLine() {
+        return JcliCommand.createCommandLine(fullTreeArgs);
+    }
+
+    @Benchmark
+    public CommandLine createFastPathCommandLine() {
+        return JcliCommand.createCommandLine(fastPathArgs);
+    }
+}
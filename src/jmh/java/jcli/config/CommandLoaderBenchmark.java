@@ -0,0 +1,49 @@
+package jcli.config;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Command loading against the full generated index (every scanned class of
+ * the configured packages).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommandLoaderBenchmark {
+
+    @Benchmark
+    public CommandIndex loadIndex() throws IOException {
+        return CommandIndex.load();
+    }
+
+    @Benchmark
+    public List<CommandConfig> loadCommands() {
+        return CommandLoader.loadCommands();
+    }
+
+    @Benchmark
+    public Optional<CommandConfig> findCommand() {
+        return CommandLoader.findCommand("LocalDate");
+    }
+
+    @Benchmark
+    public Optional<CommandConfig> findMissingCommand() {
+        return CommandLoader.findCommand("NoSuchCommand");
+    }
+}
@@ -0,0 +1,124 @@
+package jcli.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.DayOfWeek;
+import java.util.EnumSet;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Argument conversion: array literals from 10 to 1,000,000 elements, in both
+ * the JSON and the comma-separated form, plus scalar conversion and receiver
+ * construction.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConversionBenchmark {
+
+    @Param({ "10", "1000", "100000", "1000000" })
+    int size;
+
+    private String intJson;
+    private String intCsv;
+    private String doubleJson;
+    private String stringJson;
+
+    @Setup
+    public void setup() {
+        StringJoiner ints = new StringJoiner(", ", "[", "]");
+        StringJoiner csv = new StringJoiner(",");
+        StringJoiner doubles = new StringJoiner(", ", "[", "]");
+        StringJoiner strings = new StringJoiner(", ", "[", "]");
+        for (int i = 0; i < size; i++) {
+            ints.add(Integer.toString(i));
+            csv.add(Integer.toString(i));
+            doubles.add(Double.toString(i + 0.5));
+            strings.add("\"s" + i + "\"");
+        }
+        intJson = ints.toString();
+        intCsv = csv.toString();
+        doubleJson = doubles.toString();
+        stringJson = strings.toString();
+    }
+
+    @Benchmark
+    public Object intArrayJson() {
+        return ReflectionCommand.convert(int[].class, intJson);
+    }
+
+    @Benchmark
+    public Object intArrayCsv() {
+        return ReflectionCommand.convert(int[].class, intCsv);
+    }
+
+    @Benchmark
+    public Object doubleArrayJson() {
+        return ReflectionCommand.convert(double[].class, doubleJson);
+    }
+
+    @Benchmark
+    public Object stringArrayJson() {
+        return ReflectionCommand.convert(String[].class, stringJson);
+    }
+
+    /**
+     * Single values; independent of {@code size}.
+     */
+    @State(Scope.Benchmark)
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Warmup(iterations = 3, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    @Fork(1)
+    public static class Scalars {
+
+        @Benchmark
+        public Object convertInt() {
+            return ReflectionCommand.convert(int.class, "123456");
+        }
+
+        @Benchmark
+        public Object convertDouble() {
+            return ReflectionCommand.convert(double.class, "3.14159");
+        }
+
+        @Benchmark
+        public Object convertEnum() {
+            return ReflectionCommand.convert(DayOfWeek.class, "WEDNESDAY");
+        }
+
+        @Benchmark
+        public Object createBigDecimal() {
+            return ReflectionCommand.createInstance(BigDecimal.class, "3.14159265358979");
+        }
+
+        @Benchmark
+        public Object createBigDecimalKnownConstructors() {
+            return ReflectionCommand.createInstance(BigDecimal.class, "3.14159265358979",
+                    EnumSet.of(InstanceConstructor.STRING, InstanceConstructor.LONG, InstanceConstructor.INT));
+        }
+
+        @Benchmark
+        public Object createBigIntegerFallback() {
+            // No long/int constructor: probes fail before the String one is found
+            return ReflectionCommand.createInstance(BigInteger.class, "12345678901234567890");
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package jcli.core;
+
+import jcli.config.CommandConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Method lookup and HYBRID dispatch, with and without a cached plan, on
+ * classes whose receivers come from a factory ({@code LocalDate.parse}) or a
+ * String constructor ({@code BigDecimal}), plus overload selection among
+ * {@code Math.max}'s four overloads for fitting and non-fitting arguments.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DispatchBenchmark {
+
+    private final CommandConfig localDate = new CommandConfig("LocalDate", "java.time.LocalDate",
+            InstanceStrategy.HYBRID, "parse", "", List.of());
+    private final CommandConfig bigDecimal = new CommandConfig("BigDecimal", "java.math.BigDecimal",
+            InstanceStrategy.HYBRID, null, "", List.of());
+    private final CommandConfig math = new CommandConfig("Math", "java.lang.Math", InstanceStrategy.HYBRID, null,
+            "", List.of());
+
+    private final String[] plusDaysArgs = { "2024-01-31", "30" };
+    private final String[] movePointArgs = { "3.14159265358979", "4" };
+    private final String[] valueOfArgs = { "1234567890" };
+    private final String[] maxArgs = { "10", "2.5" };
+    private final String[] badMaxArgs = { "10", "ten" };
+
+    private ExecutionPlan plusDaysPlan;
+    private ExecutionPlan movePointPlan;
+    private ExecutionPlan maxPlan;
+
+    @Setup
+    public void setup() {
+        plusDaysPlan = ExecutionPlan.resolve(localDate, LocalDate.class, "plusDays", plusDaysArgs.length);
+        movePointPlan = ExecutionPlan.resolve(bigDecimal, BigDecimal.class, "movePointLeft", movePointArgs.length);
+        maxPlan = ExecutionPlan.resolve(math, Math.class, "max", maxArgs.length);
+    }
+
+    @Benchmark
+    public Optional<?> findMethodLocalDate() {
+        return ReflectionCommand.findMethod(LocalDate.class, "plusDays", 1);
+    }
+
+    @Benchmark
+    public Optional<?> findMethodOverloadedString() {
+        return ReflectionCommand.findMethod(String.class, "indexOf", 2);
+    }
+
+    @Benchmark
+    public Optional<?> findMethodMissing() {
+        return ReflectionCommand.findMethod(BigDecimal.class, "noSuchMethod", 1);
+    }
+
+    @Benchmark
+    public Object hybridLocalDateFactory() throws Exception {
+        return ExecutionPlan.resolve(localDate, LocalDate.class, "plusDays", plusDaysArgs.length)
+                .execute(plusDaysArgs);
+    }
+
+    @Benchmark
+    public Object hybridLocalDateFactoryPlanned() throws Exception {
+        return plusDaysPlan.execute(plusDaysArgs);
+    }
+
+    @Benchmark
+    public Object hybridBigDecimalConstructor() throws Exception {
+        return ExecutionPlan.resolve(bigDecimal, BigDecimal.class, "movePointLeft", movePointArgs.length)
+                .execute(movePointArgs);
+    }
+
+    @Benchmark
+    public Object hybridBigDecimalConstructorPlanned() throws Exception {
+        return movePointPlan.execute(movePointArgs);
+    }
+
+    @Benchmark
+    public Object hybridBigDecimalStatic() throws Exception {
+        return ExecutionPlan.resolve(bigDecimal, BigDecimal.class, "valueOf", valueOfArgs.length)
+                .execute(valueOfArgs);
+    }
+
+    @Benchmark
+    public Object overloadedMathMax() throws Exception {
+        return maxPlan.execute(maxArgs);
+    }
+
+    @Benchmark
+    public Object overloadedMathMaxMismatch() throws Exception {
+        try {
+            return maxPlan.execute(badMaxArgs);
+        } catch (IllegalArgumentException e) {
+            return e;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package jcli;
+
+import jcli.config.CommandConfig;
+import jcli.config.CommandLoader;
+import jcli.core.ExecutionPlan;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Calls jcli commands from Java code and returns their results instead of
+ * printing them. Commands, methods and arguments mean what they mean on the
+ * command line, except that arguments are passed as given: {@code -},
+ * {@code @file} and {@code then} are not expanded.
+ *
+ * <pre>
+ * Object max = Jcli.invoke("Math", "max", "10", "20");
+ * Object date = Jcli.invoke("LocalDate", "plusDays", "2024-01-31", "30");
+ * </pre>
+ *
+ * <p>
+ * Safe to call from any number of threads. Each command's class is loaded,
+ * and each method and argument count resolved, once per process; later calls
+ * find them with a lock-free map read. The dispatch tables, converters and
+ * receivers behind them are shared per class in the same way.
+ */
+public final class Jcli {
+
+    private static final ConcurrentHashMap<String, Target> TARGETS = new ConcurrentHashMap<>();
+
+    private Jcli() {
+    }
+
+    /**
+     * Runs {@code method} of {@code command} with {@code args} and returns its
+     * result ({@code null} for {@code void} methods).
+     *
+     * @throws IllegalArgumentException if there is no such command, or no
+     *                                  overload of {@code method} takes
+     *                                  {@code args.length} arguments
+     * @throws RuntimeException         if an argument cannot be converted or
+     *                                  the method throws, with the cause
+     */
+    public static Object invoke(String command, String method, String... args) {
+        Objects.requireNonNull(method, "method");
+        Objects.requireNonNull(args, "args");
+        ExecutionPlan plan = target(command).plan(method, args.length);
+        try {
+            return plan.execute(args);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to invoke method: " + method, e);
+        }
+    }
+
+    private static Target target(String command) {
+        Target target = TARGETS.get(Objects.requireNonNull(command, "command"));
+        if (target == null) {
+            // Once per name: other threads asking for it wait for this load
+            target = TARGETS.computeIfAbsent(command, Target::load);
+        }
+        return target;
+    }
+
+    // A command's loaded class and its resolved plans
+    private static final class Target {
+
+        private final CommandConfig config;
+        private final Class<?> type;
+        private final ConcurrentHashMap<Signature, ExecutionPlan> plans = new ConcurrentHashMap<>();
+
+        private Target(CommandConfig config, Class<?> type) {
+            this.config = config;
+            this.type = type;
+        }
+
+        static Target load(String command) {
+            CommandConfig config = CommandLoader.findCommand(command)
+                    .orElseThrow(() -> new IllegalArgumentException("Unknown command '" + command + "'"));
+            try {
+                return new Target(config, Class.forName(config.className()));
+            } catch (ClassNotFoundException e) {
+                throw new IllegalArgumentException("Class not found: " + config.className(), e);
+            }
+        }
+
+        ExecutionPlan plan(String method, int argCount) {
+            Signature signature = new Signature(method, argCount);
+            ExecutionPlan plan = plans.get(signature);
+            if (plan == null) {
+                // Failed resolutions are not stored, so they throw again next time
+                plan = plans.computeIfAbsent(signature,
+                        k -> ExecutionPlan.resolve(config, type, method, argCount));
+            }
+            return plan;
+        }
+    }
+
+    private record Signature(String method, int argCount) {
+    }
+}
@@ -2,65 +2,197 @@ package jcli;
 
 import jcli.config.CommandConfig;
 import jcli.config.CommandLoader;
+import jcli.core.StdIo;
+import jcli.core.Timings;
 import jcli.core.UniversalCommand;
+import jcli.json.JsonQueryCommand;
 import picocli.CommandLine;
 import picocli.CommandLine.Command;
 
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
 
 @Command(name = "jcli", description = "Sugared wrappers to execute methods of JDK and JVM-based libraries from the command line.", mixinStandardHelpOptions = true)
-public class JcliCommand implements Runnable {
+public class JcliCommand implements Callable<Integer> {
 
     @CommandLine.Option(names = { "-v", "--verbose" }, description = "Print welcome message.")
     boolean verbose;
 
-    public static void main(String[] args) {
+    // Consumed by Timings.start before parsing; declared for the help text
+    @CommandLine.Option(names = Timings.OPTION, arity = "0..1", fallbackValue = "text", paramLabel = "<format>", description = "Print a per-phase timing breakdown to stderr, as text or json. Same as -D"
+            + Timings.PROPERTY + "[=json].")
+    String timings;
+
+    @CommandLine.Option(names = ScriptRunner.OPTION, paramLabel = "<file>", description = "Run one jcli command line per row of <file> ('-' for stdin) in this process, in order. Rows that fail are reported and skipped; the exit code is 1 if any failed.")
+    String script;
+
+    @CommandLine.Option(names = "--jobs", paramLabel = "<n>", description = "With --script, run up to <n> rows at once; output stays in script order.")
+    int jobs = 1;
+
+    public static void main(String[] args) throws Exception {
+        // Training workload for AppCDS/PGO; the native binary has no other entry point
+        String replay = System.getProperty(TrainingReplay.PROPERTY);
+        if (replay != null) {
+            System.exit(TrainingReplay.replay(java.nio.file.Path.of(replay)));
+        }
+
+        args = Timings.start(args);
+
         // Silence java.util.logging (fixes TimeZone warnings)
         java.util.logging.LogManager.getLogManager().reset();
         java.util.logging.Logger.getLogger("").setLevel(java.util.logging.Level.OFF);
+        Timings.mark("logging reset");
 
-        int exitCode = createCommandLine().execute(args);
+        int exitCode = createCommandLine(args).execute(args);
+        Timings.report(System.err);
         System.exit(exitCode);
     }
 
+    /**
+     * Builds a command line for {@code args}, registering only the subcommand
+     * named by {@code args[0]} when it resolves. Root-level options such as
+     * {@code -h} (and unknown names, so picocli can suggest alternatives) still
+     * get the full command tree.
+     */
+    public static CommandLine createCommandLine(String[] args) {
+        if (isScript(args)) {
+            // Rows are dispatched by ScriptRunner, which builds what they name
+            return createRootCommandLine();
+        }
+        if (args.length > 0 && JsonQueryCommand.NAME.equals(args[0])) {
+            CommandLine cmd = createRootCommandLine();
+            cmd.addSubcommand(JsonQueryCommand.NAME, new JsonQueryCommand());
+            return cmd;
+        }
+        if (args.length > 0 && !args[0].startsWith("-")) {
+            long start = System.nanoTime();
+            try {
+                Optional<CommandConfig> config = CommandLoader.findCommand(args[0]);
+                Timings.mark("command lookup");
+                if (config.isPresent()) {
+                    CommandLine cmd = createRootCommandLine();
+                    cmd.addSubcommand(config.get().name(), createSubcommand(config.get()));
+                    Timings.mark("picocli model");
+
+                    if (System.getProperty("jcli.debug") != null) {
+                        StdIo.err().printf("Fast dispatch: registered '%s' in %.3f ms, skipped %d other command(s)%n",
+                                args[0], (System.nanoTime() - start) / 1_000_000.0,
+                                Math.max(0, CommandLoader.indexSize() - 1));
+                    }
+                    return cmd;
+                }
+            } catch (Exception e) {
+                // Fall back to the full tree, which reports loading errors
+            }
+        }
+        return createCommandLine();
+    }
+
     public static CommandLine createCommandLine() {
-        CommandLine cmd = new CommandLine(new JcliCommand());
-        cmd.setExpandAtFiles(false);
+        CommandLine cmd = createRootCommandLine();
+        cmd.addSubcommand(JsonQueryCommand.NAME, new JsonQueryCommand());
 
         // Dynamically register commands
         try {
             List<CommandConfig> configs = CommandLoader.loadCommands();
+            Timings.mark("command loading");
             for (CommandConfig config : configs) {
-                UniversalCommand command = new UniversalCommand(config);
-                // We need to set the name describing the command for help message
-                CommandLine subCmd = new CommandLine(command);
-                subCmd.getCommandSpec().name(config.name());
-                subCmd.getCommandSpec().usageMessage().description(config.description());
-
-                if (config.examples() != null && !config.examples().isEmpty()) {
-                    StringBuilder sb = new StringBuilder();
-                    sb.append("\nExamples:");
-                    for (String ex : config.examples()) {
-                        sb.append("\n  ").append(ex);
-                    }
-                    subCmd.getCommandSpec().usageMessage().footer(sb.toString());
-                }
-
-                cmd.addSubcommand(config.name(), subCmd);
+                cmd.addSubcommand(config.name(), createSubcommand(config));
             }
+            Timings.mark("picocli model");
         } catch (Exception e) {
-            System.err.println("Failed to load commands: " + e.getMessage());
+            StdIo.err().println("Failed to load commands: " + e.getMessage());
             if (System.getProperty("jcli.debug") != null) {
-                e.printStackTrace();
+                e.printStackTrace(StdIo.err());
+            }
+        }
+        return cmd;
+    }
+
+    // Whether the root options (those before any command name) include --script
+    private static boolean isScript(String[] args) {
+        for (String arg : args) {
+            if (!arg.startsWith("-")) {
+                return false;
+            }
+            if (arg.equals(ScriptRunner.OPTION) || arg.startsWith(ScriptRunner.OPTION + "=")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Builds the command line of the command named {@code name} on its own,
+     * or returns {@code null} if there is no such command.
+     */
+    static CommandLine subcommand(String name) {
+        CommandLine cmd;
+        if (JsonQueryCommand.NAME.equals(name)) {
+            cmd = new CommandLine(new JsonQueryCommand());
+        } else {
+            Optional<CommandConfig> config = CommandLoader.findCommand(name);
+            if (config.isEmpty()) {
+                return null;
             }
+            cmd = createSubcommand(config.get());
         }
+        cmd.setExpandAtFiles(false);
         return cmd;
     }
 
+    private static CommandLine createRootCommandLine() {
+        CommandLine cmd = new CommandLine(new JcliCommand());
+        cmd.setExpandAtFiles(false);
+        return cmd;
+    }
+
+    private static CommandLine createSubcommand(CommandConfig config) {
+        UniversalCommand command = new UniversalCommand(config);
+        // We need to set the name describing the command for help message
+        CommandLine subCmd = new CommandLine(command);
+        subCmd.getCommandSpec().name(config.name());
+        subCmd.getCommandSpec().usageMessage().description(config.description());
+
+        if (config.examples() != null && !config.examples().isEmpty()) {
+            StringBuilder sb = new StringBuilder();
+            sb.append("\nExamples:");
+            for (String ex : config.examples()) {
+                sb.append("\n  ").append(ex);
+            }
+            subCmd.getCommandSpec().usageMessage().footer(sb.toString());
+        }
+        return subCmd;
+    }
+
     @Override
-    public void run() {
+    public Integer call() throws Exception {
         if (verbose) {
-            System.out.println("Welcome to Jcli! Type `jcli -h` to view help manual.");
+            StdIo.out().println("Welcome to Jcli! Type `jcli -h` to view help manual.");
+        }
+        if (script == null) {
+            return 0;
+        }
+        try {
+            ScriptRunner runner = new ScriptRunner(jobs);
+            if ("-".equals(script)) {
+                return runner.run(new InputStreamReader(StdIo.in(), StandardCharsets.UTF_8), true);
+            }
+            try (Reader reader = Files.newBufferedReader(Path.of(script), StandardCharsets.UTF_8)) {
+                return runner.run(reader, false);
+            }
+        } catch (NoSuchFileException e) {
+            StdIo.err().println("Error: script not found: " + script);
+        } catch (IllegalArgumentException e) {
+            StdIo.err().println("Error: " + e.getMessage());
         }
+        return 1;
     }
 }
@@ -0,0 +1,255 @@
+package jcli;
+
+import jcli.core.StdIo;
+import jcli.core.UniversalCommand;
+import picocli.CommandLine;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs {@code jcli --script <file>}: one jcli command line per row, all in
+ * this process. Each command's picocli model is built once and reused for
+ * every row that names it, and with it the loaded class and the resolved
+ * methods, so a row costs about as much as a warm call.
+ *
+ * <p>
+ * Rows are split like a shell would: single quotes are literal, double quotes
+ * allow {@code \"} and {@code \\}, and a backslash escapes the next character
+ * outside quotes. Blank rows and rows starting with {@code #} are skipped, and
+ * a leading {@code jcli} is optional. A failing row is reported with its line
+ * number and does not stop the script; the exit code is 1 if any row failed.
+ *
+ * <p>
+ * With {@code --jobs <n>}, up to {@code n} rows run at once. Each row's
+ * stdout and stderr are captured and written in script order, so the output
+ * is the same as a sequential run; rows then get an empty stdin.
+ */
+public final class ScriptRunner {
+
+    public static final String OPTION = "--script";
+
+    // Rows read ahead per job; bounds memory on long scripts
+    private static final int WINDOW_PER_JOB = 4;
+
+    private final int jobs;
+
+    public ScriptRunner(int jobs) {
+        if (jobs < 1) {
+            throw new IllegalArgumentException("--jobs must be at least 1, got " + jobs);
+        }
+        this.jobs = jobs;
+    }
+
+    /**
+     * Runs every row of {@code script}.
+     *
+     * @param stdinIsScript whether {@code script} is stdin, which rows then
+     *                      cannot read
+     * @return 0 if every row succeeded, 1 otherwise
+     */
+    public int run(Reader script, boolean stdinIsScript) throws IOException {
+        BufferedReader reader = script instanceof BufferedReader ? (BufferedReader) script : new BufferedReader(script);
+        long failures = jobs == 1 ? runSequential(reader, stdinIsScript) : runConcurrent(reader);
+        return failures == 0 ? 0 : 1;
+    }
+
+    private long runSequential(BufferedReader reader, boolean stdinIsScript) throws IOException {
+        Map<String, CommandLine> commands = new HashMap<>();
+        InputStream in = stdinIsScript ? InputStream.nullInputStream() : StdIo.in();
+        long failures = 0;
+        long lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            String row = line;
+            int exitCode;
+            try {
+                exitCode = StdIo.with(in, StdIo.out(), StdIo.err(), () -> runRow(row, commands));
+            } catch (Exception e) {
+                StdIo.err().println("Error: " + e.getMessage());
+                exitCode = 1;
+            }
+            failures += report(lineNumber, exitCode);
+        }
+        return failures;
+    }
+
+    private long runConcurrent(BufferedReader reader) throws IOException {
+        PrintStream out = StdIo.out();
+        PrintStream err = StdIo.err();
+        // Picocli models are not thread-safe, so each worker keeps its own
+        ThreadLocal<Map<String, CommandLine>> commands = ThreadLocal.withInitial(HashMap::new);
+        ExecutorService pool = Executors.newFixedThreadPool(jobs);
+        Deque<Future<Captured>> pending = new ArrayDeque<>();
+        long failures = 0;
+        long lineNumber = 0;
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                long number = ++lineNumber;
+                String row = line;
+                if (pending.size() == jobs * WINDOW_PER_JOB) {
+                    failures += write(await(pending.poll()), out, err);
+                }
+                pending.add(pool.submit(() -> capture(number, row, commands.get(), out.charset())));
+            }
+            while (!pending.isEmpty()) {
+                failures += write(await(pending.poll()), out, err);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        return failures;
+    }
+
+    private static Captured capture(long lineNumber, String row, Map<String, CommandLine> commands,
+            Charset charset) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        PrintStream capturedOut = new PrintStream(out, false, charset);
+        PrintStream capturedErr = new PrintStream(err, false, charset);
+        int exitCode;
+        try {
+            exitCode = StdIo.with(InputStream.nullInputStream(), capturedOut, capturedErr,
+                    () -> runRow(row, commands));
+        } catch (Exception e) {
+            capturedErr.println("Error: " + e.getMessage());
+            exitCode = 1;
+        }
+        capturedOut.flush();
+        capturedErr.flush();
+        return new Captured(lineNumber, exitCode, out.toByteArray(), err.toByteArray());
+    }
+
+    private static long write(Captured row, PrintStream out, PrintStream err) {
+        out.write(row.out(), 0, row.out().length);
+        out.flush();
+        err.write(row.err(), 0, row.err().length);
+        return report(row.lineNumber(), row.exitCode());
+    }
+
+    private static long report(long lineNumber, int exitCode) {
+        if (exitCode == 0) {
+            return 0;
+        }
+        StdIo.err().println("Script line " + lineNumber + " failed with exit code " + exitCode);
+        return 1;
+    }
+
+    // Runs one row with the streams bound for the current thread; blank rows succeed
+    private static int runRow(String row, Map<String, CommandLine> commands) {
+        String[] args;
+        try {
+            args = tokenize(row);
+        } catch (IllegalArgumentException e) {
+            StdIo.err().println("Error: " + e.getMessage());
+            return CommandLine.ExitCode.USAGE;
+        }
+        if (args.length == 0) {
+            return CommandLine.ExitCode.OK;
+        }
+        CommandLine command = commands.computeIfAbsent(args[0], JcliCommand::subcommand);
+        if (command == null) {
+            StdIo.err().println("Unknown command '" + args[0] + "'");
+            return CommandLine.ExitCode.USAGE;
+        }
+        command.setOut(new PrintWriter(StdIo.out(), true));
+        command.setErr(new PrintWriter(StdIo.err(), true));
+        int exitCode = command.execute(Arrays.copyOfRange(args, 1, args.length));
+        if (exitCode == 0 && command.getCommand() instanceof UniversalCommand
+                && ((UniversalCommand) command.getCommand()).failed()) {
+            return CommandLine.ExitCode.SOFTWARE;
+        }
+        return exitCode;
+    }
+
+    private static Captured await(Future<Captured> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a script line");
+        } catch (ExecutionException e) {
+            // capture() catches Exceptions, so only Errors get here
+            throw (Error) e.getCause();
+        }
+    }
+
+    /**
+     * Splits a script row into arguments, shell style. Returns an empty array
+     * for blank rows and comments, and drops a leading {@code jcli}.
+     */
+    public static String[] tokenize(String line) {
+        List<String> tokens = new ArrayList<>();
+        StringBuilder token = new StringBuilder();
+        boolean inToken = false;
+        char quote = 0;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quote == '\'') {
+                if (c == '\'') {
+                    quote = 0;
+                } else {
+                    token.append(c);
+                }
+            } else if (quote == '"') {
+                if (c == '"') {
+                    quote = 0;
+                } else if (c == '\\' && i + 1 < line.length() && (line.charAt(i + 1) == '"' || line.charAt(i + 1) == '\\')) {
+                    token.append(line.charAt(++i));
+                } else {
+                    token.append(c);
+                }
+            } else if (Character.isWhitespace(c)) {
+                if (inToken) {
+                    tokens.add(token.toString());
+                    token.setLength(0);
+                    inToken = false;
+                }
+            } else if (c == '#' && !inToken) {
+                break;
+            } else {
+                inToken = true;
+                if (c == '\'' || c == '"') {
+                    quote = c;
+                } else if (c == '\\' && i + 1 < line.length()) {
+                    token.append(line.charAt(++i));
+                } else {
+                    token.append(c);
+                }
+            }
+        }
+        if (quote != 0) {
+            throw new IllegalArgumentException("Unterminated " + quote + " quote in: " + line);
+        }
+        if (inToken) {
+            tokens.add(token.toString());
+        }
+        if (!tokens.isEmpty() && tokens.get(0).equals("jcli")) {
+            tokens.remove(0);
+        }
+        return tokens.toArray(new String[0]);
+    }
+
+    private record Captured(long lineNumber, int exitCode, byte[] out, byte[] err) {
+    }
+}
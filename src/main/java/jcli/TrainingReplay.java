@@ -0,0 +1,139 @@
+package jcli;
+
+import jcli.core.StdIo;
+import net.minidev.json.JSONArray;
+import net.minidev.json.JSONObject;
+import net.minidev.json.JSONValue;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replays the documented examples in {@code docs/data.json} (the ones
+ * {@code DocumentationTestRunner} checks) in a single process, as a training
+ * workload: the {@code cdsArchive} Gradle task records the classes it loads
+ * into an AppCDS archive, and {@code pgoTrain} runs it on the instrumented
+ * native binary to collect a PGO profile.
+ *
+ * <p>
+ * Run it with {@code java -cp jcli.jar jcli.TrainingReplay [data.json]}, or
+ * {@code jcli -Djcli.replay=<data.json>} for a native binary, which has no
+ * other entry point. Each example goes through the same fast dispatch path
+ * as a real call, with stdin empty and its output discarded. Examples that
+ * would end the process are skipped.
+ */
+public final class TrainingReplay {
+
+    public static final String PROPERTY = "jcli.replay";
+
+    private static final String DEFAULT_DATA = "docs/data.json";
+
+    // Command and method pairs that would terminate the replay itself
+    private static final List<String> SKIPPED = List.of("System exit", "Runtime exit", "Runtime halt");
+
+    private TrainingReplay() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.exit(replay(Path.of(args.length > 0 ? args[0] : DEFAULT_DATA)));
+    }
+
+    /**
+     * Runs every example in {@code data} and prints a summary to stderr.
+     *
+     * @return 0 if the file could be replayed, 1 otherwise; failing examples
+     *         are counted but do not fail the replay
+     */
+    public static int replay(Path data) throws Exception {
+        List<String> examples;
+        try (Reader reader = Files.newBufferedReader(data, StandardCharsets.UTF_8)) {
+            examples = examples(JSONValue.parse(reader));
+        }
+        if (examples.isEmpty()) {
+            System.err.println("No examples found in " + data);
+            return 1;
+        }
+
+        PrintStream discard = new PrintStream(OutputStream.nullOutputStream());
+        long start = System.nanoTime();
+        int replayed = 0;
+        int failed = 0;
+        for (String example : examples) {
+            String[] args = tokenize(example);
+            if (args.length < 2 || !"jcli".equals(args[0]) || isSkipped(args)) {
+                continue;
+            }
+            String[] command = java.util.Arrays.copyOfRange(args, 1, args.length);
+            try {
+                int exitCode = StdIo.with(InputStream.nullInputStream(), discard, discard,
+                        () -> JcliCommand.createCommandLine(command).execute(command));
+                failed += exitCode == 0 ? 0 : 1;
+            } catch (Exception e) {
+                failed++;
+            }
+            replayed++;
+        }
+        System.err.printf("Replayed %d examples (%d failed) in %.1f ms%n", replayed, failed,
+                (System.nanoTime() - start) / 1_000_000.0);
+        return 0;
+    }
+
+    /**
+     * Splits an example command line into arguments. Double quotes group
+     * words and are dropped; there are no escapes.
+     */
+    public static String[] tokenize(String command) {
+        List<String> tokens = new ArrayList<>();
+        StringBuilder currentToken = new StringBuilder();
+        boolean inQuotes = false;
+
+        for (int i = 0; i < command.length(); i++) {
+            char c = command.charAt(i);
+            if (c == '"') {
+                inQuotes = !inQuotes;
+            } else if (c == ' ' && !inQuotes) {
+                if (currentToken.length() > 0) {
+                    tokens.add(currentToken.toString());
+                    currentToken.setLength(0);
+                }
+            } else {
+                currentToken.append(c);
+            }
+        }
+        if (currentToken.length() > 0) {
+            tokens.add(currentToken.toString());
+        }
+
+        return tokens.toArray(new String[0]);
+    }
+
+    private static List<String> examples(Object root) {
+        List<String> examples = new ArrayList<>();
+        if (!(root instanceof JSONObject) || !(((JSONObject) root).get("commands") instanceof JSONArray)) {
+            return examples;
+        }
+        for (Object command : (JSONArray) ((JSONObject) root).get("commands")) {
+            Object methods = command instanceof JSONObject ? ((JSONObject) command).get("methods") : null;
+            if (methods instanceof JSONArray) {
+                for (Object method : (JSONArray) methods) {
+                    Object example = method instanceof JSONObject ? ((JSONObject) method).get("example") : null;
+                    if (example instanceof String) {
+                        examples.add((String) example);
+                    }
+                }
+            }
+        }
+        return examples;
+    }
+
+    static boolean isSkipped(String[] args) {
+        return args.length > 2 && SKIPPED.contains(args[1] + " " + args[2]);
+    }
+}
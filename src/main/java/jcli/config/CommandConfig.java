@@ -1,7 +1,9 @@
 package jcli.config;
 
+import jcli.core.InstanceConstructor;
 import jcli.core.InstanceStrategy;
 import java.util.List;
+import java.util.Set;
 
 public record CommandConfig(
         String name,
@@ -9,5 +11,51 @@ public record CommandConfig(
         InstanceStrategy strategy,
         String factory,
         String description,
-        List<String> examples) {
+        List<String> examples,
+        // Known from the build-time index; null means constructors are probed at runtime
+        Set<InstanceConstructor> constructors,
+        // Methods whose results may be cached on disk; "*" stands for every method
+        // except the time- and randomness-dependent ones (see isPure)
+        Set<String> pure) {
+
+    // Never pure under "*": their result changes between calls with the same arguments
+    private static final List<String> IMPURE_PREFIXES = List.of("now", "random", "nanoTime", "currentTimeMillis");
+
+    public CommandConfig(
+            String name,
+            String className,
+            InstanceStrategy strategy,
+            String factory,
+            String description,
+            List<String> examples) {
+        this(name, className, strategy, factory, description, examples, null, Set.of());
+    }
+
+    public CommandConfig(
+            String name,
+            String className,
+            InstanceStrategy strategy,
+            String factory,
+            String description,
+            List<String> examples,
+            Set<InstanceConstructor> constructors) {
+        this(name, className, strategy, factory, description, examples, constructors, Set.of());
+    }
+
+    public CommandConfig {
+        pure = pure == null ? Set.of() : Set.copyOf(pure);
+    }
+
+    /**
+     * Whether {@code method} is allowlisted as pure, i.e. its result depends
+     * only on its arguments. A method named explicitly is always pure;
+     * {@code "*"} covers the rest except {@code now}, {@code random*},
+     * {@code nanoTime} and {@code currentTimeMillis}.
+     */
+    public boolean isPure(String method) {
+        if (pure.contains(method)) {
+            return true;
+        }
+        return pure.contains("*") && IMPURE_PREFIXES.stream().noneMatch(method::startsWith);
+    }
 }
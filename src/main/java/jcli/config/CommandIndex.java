@@ -0,0 +1,206 @@
+package jcli.config;
+
+import jcli.core.InstanceConstructor;
+import jcli.core.InstanceStrategy;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Read-only view of the binary command index written by the
+ * {@code generateReflectConfig} Gradle task.
+ *
+ * <p>
+ * Layout (big-endian):
+ *
+ * <pre>
+ * int    magic ("JCLI")
+ * short  version
+ * int    count
+ * int[]  record offsets, sorted by command name
+ * record name, className, strategy (byte), flags (byte),
+ *        constructors (byte), factory, description,
+ *        example count (short), examples...,
+ *        pure method count (short), pure methods...
+ * </pre>
+ *
+ * Strings are stored as an unsigned short length followed by UTF-8 bytes; an
+ * empty string stands for "not set". Lookups binary-search the offset table
+ * and only decode the records they touch.
+ *
+ * <p>
+ * For scanned classes the factory and constructor bitmask are computed from
+ * the ClassGraph scan, so the runtime can use them without reflecting over
+ * the class.
+ */
+public final class CommandIndex {
+
+    public static final String RESOURCE = "command-index.bin";
+
+    static final int MAGIC = 0x4A434C49;
+    static final int VERSION = 3;
+
+    /** Entry was discovered by package scanning rather than declared in commands.yaml. */
+    static final int FLAG_AUTO = 1;
+    /** The constructors byte is meaningful (bit i = {@link InstanceConstructor} ordinal i). */
+    static final int FLAG_CONSTRUCTORS = 2;
+
+    private static final InstanceStrategy[] STRATEGIES = InstanceStrategy.values();
+    private static final InstanceConstructor[] CONSTRUCTORS = InstanceConstructor.values();
+
+    private final ByteBuffer buffer;
+    private final int count;
+
+    private CommandIndex(ByteBuffer buffer) {
+        if (buffer.getInt(0) != MAGIC) {
+            throw new IllegalStateException("Not a jcli command index");
+        }
+        int version = buffer.getShort(4);
+        if (version != VERSION) {
+            throw new IllegalStateException("Unsupported command index version: " + version);
+        }
+        this.buffer = buffer;
+        this.count = buffer.getInt(6);
+    }
+
+    /**
+     * Loads the index from the classpath, memory-mapping it when it lives on the
+     * file system. Returns {@code null} if the resource is absent.
+     */
+    public static CommandIndex load() throws IOException {
+        URL url = CommandIndex.class.getClassLoader().getResource(RESOURCE);
+        if (url == null) {
+            return null;
+        }
+        if ("file".equals(url.getProtocol())) {
+            try (FileChannel channel = FileChannel.open(Path.of(url.toURI()), StandardOpenOption.READ)) {
+                return new CommandIndex(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            } catch (java.net.URISyntaxException e) {
+                // Fall through to stream access
+            }
+        }
+        try (InputStream in = url.openStream()) {
+            return new CommandIndex(ByteBuffer.wrap(in.readAllBytes()));
+        }
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Finds the entry for a command name, or {@code null} if it is not indexed.
+     */
+    public Entry find(String name) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            Cursor cursor = new Cursor(recordOffset(mid));
+            int cmp = cursor.readString().compareTo(name);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return new Cursor(recordOffset(mid)).readEntry();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Decodes every entry, in name order.
+     */
+    public List<Entry> entries() {
+        List<Entry> entries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            entries.add(new Cursor(recordOffset(i)).readEntry());
+        }
+        return entries;
+    }
+
+    private int recordOffset(int i) {
+        return buffer.getInt(10 + 4 * i);
+    }
+
+    /**
+     * A decoded index record.
+     */
+    public record Entry(CommandConfig config, boolean autoDiscovered) {
+    }
+
+    private final class Cursor {
+        private int position;
+
+        Cursor(int position) {
+            this.position = position;
+        }
+
+        Entry readEntry() {
+            String name = readString();
+            String className = readString();
+            InstanceStrategy strategy = STRATEGIES[buffer.get(position++)];
+            int flags = buffer.get(position++);
+            int constructorBits = buffer.get(position++);
+            String factory = readString();
+            String description = readString();
+            int exampleCount = buffer.getShort(position) & 0xFFFF;
+            position += 2;
+            List<String> examples = new ArrayList<>(exampleCount);
+            for (int i = 0; i < exampleCount; i++) {
+                examples.add(readString());
+            }
+            int pureCount = buffer.getShort(position) & 0xFFFF;
+            position += 2;
+            Set<String> pure = new HashSet<>();
+            for (int i = 0; i < pureCount; i++) {
+                pure.add(readString());
+            }
+
+            boolean auto = (flags & FLAG_AUTO) != 0;
+            if (description.isEmpty() && auto) {
+                description = "Auto-generated command for " + className;
+            }
+            CommandConfig config = new CommandConfig(
+                    name,
+                    className,
+                    strategy,
+                    factory.isEmpty() ? null : factory,
+                    description.isEmpty() ? null : description,
+                    examples,
+                    (flags & FLAG_CONSTRUCTORS) != 0 ? toConstructors(constructorBits) : null,
+                    pure);
+            return new Entry(config, auto);
+        }
+
+        private Set<InstanceConstructor> toConstructors(int bits) {
+            Set<InstanceConstructor> constructors = EnumSet.noneOf(InstanceConstructor.class);
+            for (InstanceConstructor constructor : CONSTRUCTORS) {
+                if ((bits & (1 << constructor.ordinal())) != 0) {
+                    constructors.add(constructor);
+                }
+            }
+            return constructors;
+        }
+
+        String readString() {
+            int length = buffer.getShort(position) & 0xFFFF;
+            byte[] bytes = new byte[length];
+            buffer.get(position + 2, bytes);
+            position += 2 + length;
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -6,104 +6,218 @@ import java.io.InputStream;
 import java.util.List;
 import java.util.Map;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import jcli.core.InstanceConstructor;
 import jcli.core.InstanceStrategy;
+import jcli.core.Timings;
 
 public class CommandLoader {
 
+    // "runtime" inside a native image, "buildtime" while one is being built
+    private static final boolean NATIVE_IMAGE = "runtime"
+            .equals(System.getProperty("org.graalvm.nativeimage.imagecode"));
+
+    // The last parsed override file; null until one is read
+    private static volatile Overrides overrides;
+
     public static List<CommandConfig> loadCommands() {
-        Yaml yaml = new Yaml();
-        List<CommandConfig> configs = new ArrayList<>();
+        Map<String, CommandConfig> configs = new LinkedHashMap<>();
+
+        // 1. Load explicit commands from a user-supplied commands.yaml
+        for (CommandConfig config : loadOverrides()) {
+            configs.putIfAbsent(config.name(), config);
+        }
 
-        // 1. Load explicit commands from commands.yaml
-        String configResource = System.getProperty("jcli.config.resource", "commands.yaml");
+        // 2. Load commands from the build-time index
+        if (hasIndex()) {
+            for (CommandIndex.Entry entry : indexEntries()) {
+                // Avoid duplicates if explicit config already covered this name
+                if (!configs.containsKey(entry.config().name())) {
+                    CommandConfig config = resolve(entry);
+                    if (config != null) {
+                        configs.put(config.name(), config);
+                    }
+                }
+            }
+        }
+
+        return new ArrayList<>(configs.values());
+    }
+
+    /**
+     * Resolves a single command by name without materializing the rest of the
+     * registry.
+     */
+    public static Optional<CommandConfig> findCommand(String name) {
+        for (CommandConfig config : loadOverrides()) {
+            if (config.name().equals(name)) {
+                return Optional.of(config);
+            }
+        }
+
+        if (hasIndex()) {
+            CommandIndex.Entry entry = NATIVE_IMAGE ? Registry.ENTRIES.get(name) : IndexHolder.INDEX.find(name);
+            if (entry != null) {
+                return Optional.ofNullable(resolve(entry));
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Number of commands in the build-time index, or 0 if it is unavailable.
+     */
+    public static int indexSize() {
+        if (!hasIndex()) {
+            return 0;
+        }
+        return NATIVE_IMAGE ? Registry.ENTRIES.size() : IndexHolder.INDEX.size();
+    }
+
+    private static boolean hasIndex() {
+        return NATIVE_IMAGE ? Registry.ENTRIES != null : IndexHolder.INDEX != null;
+    }
+
+    private static Collection<CommandIndex.Entry> indexEntries() {
+        return NATIVE_IMAGE ? Registry.ENTRIES.values() : IndexHolder.INDEX.entries();
+    }
+
+    // The bundled commands.yaml is compiled into the binary index at build time,
+    // so YAML is only parsed when a caller points jcli.config.resource at its own
+    // file, or when running from a tree where the index has not been generated.
+    // It is parsed once per resource name, so --script rows and daemon requests
+    // do not parse it again.
+    private static List<CommandConfig> loadOverrides() {
+        String configResource = System.getProperty("jcli.config.resource");
+        if (configResource == null) {
+            if (hasIndex()) {
+                return List.of();
+            }
+            configResource = "commands.yaml";
+        }
+
+        Overrides cached = overrides;
+        if (cached == null || !cached.resource().equals(configResource)) {
+            // A racing duplicate parse is harmless
+            cached = new Overrides(configResource, parseOverrides(configResource));
+            overrides = cached;
+        }
+        return cached.configs();
+    }
+
+    private static List<CommandConfig> parseOverrides(String configResource) {
+        List<CommandConfig> configs = new ArrayList<>();
         try (InputStream inputStream = CommandLoader.class.getClassLoader().getResourceAsStream(configResource)) {
             if (inputStream != null) {
-                Map<String, Object> data = yaml.load(inputStream);
+                Map<String, Object> data = new Yaml().load(inputStream);
                 if (data != null && data.containsKey("commands")) {
                     @SuppressWarnings("unchecked")
                     List<Map<String, Object>> commandsData = (List<Map<String, Object>>) data.get("commands");
+                    @SuppressWarnings("unchecked")
+                    Map<String, List<String>> pure = (Map<String, List<String>>) data.get("pure");
                     if (commandsData != null) {
                         for (Map<String, Object> map : commandsData) {
-                            configs.add(mapToConfig(map));
+                            configs.add(mapToConfig(map, pure != null ? pure : Map.of()));
                         }
                     }
                 }
             }
         } catch (Exception e) {
-            throw new RuntimeException("Failed to load commands.yaml", e);
+            throw new RuntimeException("Failed to load " + configResource, e);
         }
+        Timings.mark("yaml overrides");
+        return List.copyOf(configs);
+    }
 
-        // 2. Load auto-discovered commands from command-index.json
-        try (InputStream indexStream = CommandLoader.class.getClassLoader().getResourceAsStream("command-index.json")) {
-            if (indexStream != null) {
-                @SuppressWarnings("unchecked")
-                Map<String, String> index = yaml.load(indexStream);
-                if (index != null) {
-                    for (Map.Entry<String, String> entry : index.entrySet()) {
-                        String name = entry.getKey();
-                        String className = entry.getValue();
-
-                        try {
-                            // Avoid duplicates if explicit config already covered this name
-                            boolean exists = configs.stream().anyMatch(c -> c.name().equals(name));
-                            if (!exists) {
-                                // Just check if we can load the class before adding it config
-                                // This ensures we don't register broken commands
-                                // Use initialize=false to avoid triggering static initializers (like TimeZone
-                                // in json-smart)
-                                Class<?> cls = Class.forName(className, false, CommandLoader.class.getClassLoader());
-
-                                // Smart Factory Detection:
-                                // Look for static methods like parse(String), valueOf(String), of(String),
-                                // fromString(String)
-                                // that return the class type.
-                                String detectedFactory = null;
-                                for (String candidate : new String[] { "parse", "valueOf", "of", "fromString" }) {
-                                    java.lang.reflect.Method m = null;
-                                    try {
-                                        m = cls.getMethod(candidate, String.class);
-                                    } catch (NoSuchMethodException e) {
-                                        try {
-                                            m = cls.getMethod(candidate, CharSequence.class);
-                                        } catch (NoSuchMethodException e2) {
-                                            // Method not found with either signature
-                                        }
-                                    }
-
-                                    if (m != null &&
-                                            java.lang.reflect.Modifier.isStatic(m.getModifiers()) &&
-                                            m.getReturnType().isAssignableFrom(cls)) {
-                                        detectedFactory = candidate;
-                                        break;
-                                    }
-                                }
-
-                                // Create a default HYBRID config
-                                configs.add(new CommandConfig(
-                                        name,
-                                        className,
-                                        InstanceStrategy.HYBRID,
-                                        detectedFactory,
-                                        "Auto-generated command for " + className,
-                                        new ArrayList<>() // No examples
-                                ));
-                            }
-                        } catch (Throwable t) {
-                            // Skip classes that cannot be loaded (e.g. internal/hidden/deprecated)
-                            // System.err.println("Skipping " + className + ": " + t.getMessage());
-                        }
-                    }
+    // Scanned entries carry the factory and constructors computed at build time,
+    // so they are trusted as-is. -Djcli.index.verify=true re-derives them with
+    // reflection and reports (and corrects) any entry that disagrees.
+    private static CommandConfig resolve(CommandIndex.Entry entry) {
+        CommandConfig config = entry.config();
+        if (!entry.autoDiscovered() || !Boolean.getBoolean("jcli.index.verify")) {
+            return config;
+        }
+
+        try {
+            // Use initialize=false to avoid triggering static initializers (like TimeZone
+            // in json-smart)
+            Class<?> cls = Class.forName(config.className(), false, CommandLoader.class.getClassLoader());
+
+            String factory = detectFactory(cls);
+            Set<InstanceConstructor> constructors = detectConstructors(cls);
+            if (Objects.equals(factory, config.factory()) && constructors.equals(config.constructors())) {
+                return config;
+            }
+
+            System.err.println("Warning: command index is stale for " + config.name()
+                    + " (factory " + config.factory() + " -> " + factory
+                    + ", constructors " + config.constructors() + " -> " + constructors + ")");
+            return new CommandConfig(
+                    config.name(),
+                    config.className(),
+                    config.strategy(),
+                    factory,
+                    config.description(),
+                    config.examples(),
+                    constructors,
+                    config.pure());
+        } catch (Throwable t) {
+            // Skip classes that cannot be loaded (e.g. internal/hidden/deprecated)
+            System.err.println("Warning: command index entry " + config.name() + " cannot be loaded: " + t);
+            return null;
+        }
+    }
+
+    // Smart Factory Detection:
+    // Look for static methods like parse(String), valueOf(String), of(String),
+    // fromString(String) that return the class type.
+    private static String detectFactory(Class<?> cls) {
+        for (String candidate : new String[] { "parse", "valueOf", "of", "fromString" }) {
+            java.lang.reflect.Method m = null;
+            try {
+                m = cls.getMethod(candidate, String.class);
+            } catch (NoSuchMethodException e) {
+                try {
+                    m = cls.getMethod(candidate, CharSequence.class);
+                } catch (NoSuchMethodException e2) {
+                    // Method not found with either signature
                 }
             }
-        } catch (Exception e) {
-            // It's okay if index doesn't exist or fails, just log it if we had a logger
-            System.err.println("Warning: Failed to load command-index.json: " + e.getMessage());
+
+            if (m != null &&
+                    java.lang.reflect.Modifier.isStatic(m.getModifiers()) &&
+                    m.getReturnType().isAssignableFrom(cls)) {
+                return candidate;
+            }
         }
+        return null;
+    }
 
-        return configs;
+    private static Set<InstanceConstructor> detectConstructors(Class<?> cls) {
+        Set<InstanceConstructor> constructors = EnumSet.noneOf(InstanceConstructor.class);
+        for (java.lang.reflect.Constructor<?> c : cls.getConstructors()) {
+            Class<?>[] params = c.getParameterTypes();
+            if (params.length == 0) {
+                constructors.add(InstanceConstructor.NO_ARG);
+            } else if (params.length == 1 && params[0] == String.class) {
+                constructors.add(InstanceConstructor.STRING);
+            } else if (params.length == 1 && params[0] == long.class) {
+                constructors.add(InstanceConstructor.LONG);
+            } else if (params.length == 1 && params[0] == int.class) {
+                constructors.add(InstanceConstructor.INT);
+            }
+        }
+        return constructors;
     }
 
-    private static CommandConfig mapToConfig(Map<String, Object> map) {
+    // A command's own 'pure' list wins over the top-level one for its class
+    private static CommandConfig mapToConfig(Map<String, Object> map, Map<String, List<String>> pureByClass) {
         String name = (String) map.get("name");
         String className = (String) map.get("className");
         InstanceStrategy strategy = InstanceStrategy.valueOf((String) map.get("strategy"));
@@ -111,7 +225,55 @@ public class CommandLoader {
         String description = (String) map.get("description");
         @SuppressWarnings("unchecked")
         List<String> examples = (List<String>) map.get("examples");
+        @SuppressWarnings("unchecked")
+        List<String> pure = (List<String>) map.getOrDefault("pure", pureByClass.get(className));
+
+        return new CommandConfig(name, className, strategy, factory, description, examples, null,
+                pure == null ? Set.of() : Set.copyOf(pure));
+    }
+
+    private record Overrides(String resource, List<CommandConfig> configs) {
+    }
+
+    // Native images use this instead of IndexHolder. build.gradle initializes it
+    // at image build time, so the decoded entries (and the CommandConfig records
+    // in them) are part of the image heap and a run starts with them in place.
+    private static final class Registry {
+        // By name, in name order; null if there is no index
+        static final Map<String, CommandIndex.Entry> ENTRIES = decode();
+
+        private static Map<String, CommandIndex.Entry> decode() {
+            try {
+                CommandIndex index = CommandIndex.load();
+                if (index == null) {
+                    return null;
+                }
+                Map<String, CommandIndex.Entry> entries = new LinkedHashMap<>();
+                for (CommandIndex.Entry entry : index.entries()) {
+                    entries.put(entry.config().name(), entry);
+                }
+                return Collections.unmodifiableMap(entries);
+            } catch (Exception e) {
+                System.err.println("Warning: Failed to load " + CommandIndex.RESOURCE + ": " + e.getMessage());
+                return null;
+            }
+        }
+    }
+
+    // Loaded once per process; lookups against it are read-only
+    private static final class IndexHolder {
+        static final CommandIndex INDEX = loadIndex();
 
-        return new CommandConfig(name, className, strategy, factory, description, examples);
+        private static CommandIndex loadIndex() {
+            try {
+                CommandIndex index = CommandIndex.load();
+                Timings.mark("index load");
+                return index;
+            } catch (Exception e) {
+                // It's okay if index doesn't exist or fails, just log it if we had a logger
+                System.err.println("Warning: Failed to load " + CommandIndex.RESOURCE + ": " + e.getMessage());
+                return null;
+            }
+        }
     }
 }
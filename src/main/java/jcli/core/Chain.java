@@ -0,0 +1,272 @@
+package jcli.core;
+
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Follow-up calls applied to a command's result, written as
+ * {@code jcli LocalDate now then plusDays 3 then getDayOfWeek}. Each step is
+ * resolved against the runtime class of the value it receives: an instance
+ * method with the given arguments makes the value the receiver; otherwise a
+ * static method of that class taking the value as its first parameter is
+ * used (e.g. {@code jcli Integer parseInt 42 then toBinaryString}).
+ *
+ * <p>
+ * {@code then} only separates steps when a method name follows it, so a
+ * trailing literal {@code then} is still passed through as an argument.
+ * Elsewhere a literal is written {@code \then}: an argument of backslashes
+ * followed by {@code then} never separates and loses one backslash.
+ */
+public final class Chain {
+
+    public static final String SEPARATOR = "then";
+
+    private final String[] head;
+    private final List<Step> steps;
+
+    private Chain(String[] head, List<Step> steps) {
+        this.head = head;
+        this.steps = steps;
+    }
+
+    /**
+     * Splits a command's arguments into those of the first call and the
+     * chained steps that follow.
+     */
+    public static Chain parse(String[] args) {
+        List<Integer> separators = new ArrayList<>();
+        for (int i = 0; i < args.length - 1; i++) {
+            if (SEPARATOR.equals(args[i])) {
+                separators.add(i);
+                // The next token is a method name, never a separator
+                i++;
+            }
+        }
+        if (separators.isEmpty()) {
+            return new Chain(unescape(args, 0, args.length), List.of());
+        }
+
+        List<Step> steps = new ArrayList<>();
+        for (int s = 0; s < separators.size(); s++) {
+            int from = separators.get(s) + 1;
+            int to = s + 1 < separators.size() ? separators.get(s + 1) : args.length;
+            steps.add(new Step(args[from], unescape(args, from + 1, to)));
+        }
+        return new Chain(unescape(args, 0, separators.get(0)), steps);
+    }
+
+    // Copies args[from, to), turning \then into then (and \\then into \then)
+    private static String[] unescape(String[] args, int from, int to) {
+        String[] copy = from == 0 && to == args.length ? args : Arrays.copyOfRange(args, from, to);
+        for (int i = 0; i < copy.length; i++) {
+            if (isEscapedSeparator(copy[i])) {
+                if (copy == args) {
+                    copy = args.clone();
+                }
+                copy[i] = copy[i].substring(1);
+            }
+        }
+        return copy;
+    }
+
+    private static boolean isEscapedSeparator(String arg) {
+        if (arg == null || !arg.endsWith(SEPARATOR)) {
+            return false;
+        }
+        int slashes = arg.length() - SEPARATOR.length();
+        for (int i = 0; i < slashes; i++) {
+            if (arg.charAt(i) != '\\') {
+                return false;
+            }
+        }
+        return slashes > 0;
+    }
+
+    /**
+     * Arguments of the first call.
+     */
+    public String[] head() {
+        return head;
+    }
+
+    public boolean isEmpty() {
+        return steps.isEmpty();
+    }
+
+    /**
+     * Expands {@code @file} and {@code -} arguments of every step.
+     */
+    public void resolveArguments() {
+        for (Step step : steps) {
+            for (int i = 0; i < step.args.length; i++) {
+                step.args[i] = ReflectionCommand.resolveArgument(step.args[i]);
+            }
+        }
+    }
+
+    public Object apply(Object value) {
+        for (Step step : steps) {
+            value = step.apply(value);
+        }
+        return value;
+    }
+
+    private static final class Step {
+        private final String method;
+        private final String[] args;
+        // Resolved per runtime class, so batches of same-typed values resolve
+        // once; a step's arguments are fixed (and expanded) before it is
+        // applied, so the overload chosen for a class never changes
+        private final ConcurrentHashMap<Class<?>, Target> targets = new ConcurrentHashMap<>();
+
+        Step(String method, String[] args) {
+            this.method = method;
+            this.args = args;
+        }
+
+        Object apply(Object value) {
+            if (value == null) {
+                throw new IllegalArgumentException("Cannot call '" + method + "' on a null result");
+            }
+            return targets.computeIfAbsent(value.getClass(), this::resolve).invoke(value, args);
+        }
+
+        // The overload is picked from the arguments as for a first call (see
+        // OverloadResolver): instance methods first, then static methods taking
+        // the value as their first parameter
+        private Target resolve(Class<?> type) {
+            MethodTable table = MethodTable.of(type);
+            List<MethodTable.Candidate> instance = new ArrayList<>();
+            for (MethodTable.Candidate candidate : table.candidates(method, args.length)) {
+                if (!candidate.isStatic()) {
+                    instance.add(candidate);
+                }
+            }
+            IllegalArgumentException mismatch = null;
+            if (!instance.isEmpty()) {
+                try {
+                    MethodTable.Candidate best = instance.size() == 1
+                            ? instance.get(0)
+                            : OverloadResolver.resolve(method, instance, args);
+                    return new Target(accessible(type, best, args.length), true);
+                } catch (IllegalArgumentException e) {
+                    mismatch = e;
+                }
+            }
+
+            MethodTable.Candidate best = null;
+            int bestScore = -1;
+            for (MethodTable.Candidate candidate : table.candidates(method, args.length + 1)) {
+                if (!candidate.isStatic() || candidate.isVarArgs()
+                        || !boxed(candidate.parameterTypes()[0]).isAssignableFrom(type)) {
+                    continue;
+                }
+                int score = staticScore(candidate.parameterTypes());
+                if (score > bestScore) {
+                    best = candidate;
+                    bestScore = score;
+                }
+            }
+            if (best != null) {
+                return new Target(best, false);
+            }
+            if (mismatch != null) {
+                throw mismatch;
+            }
+            throw new IllegalArgumentException(
+                    ReflectionCommand.diagnoseError(type, method, args.length) + " on " + type.getName());
+        }
+
+        // Fits scores of the arguments after the value, or -1 if one does not fit
+        private int staticScore(Class<?>[] types) {
+            int total = 0;
+            for (int i = 0; i < args.length; i++) {
+                int score = Fits.of(types[i + 1]).score(args[i]);
+                if (score == Fits.NONE) {
+                    return -1;
+                }
+                total += score;
+            }
+            return total;
+        }
+    }
+
+    private static final class Target {
+        private final MethodTable.Candidate candidate;
+        private final boolean receiver;
+        // Static form: converters for the parameters after the first
+        private final Converter[] converters;
+
+        Target(MethodTable.Candidate candidate, boolean receiver) {
+            this.candidate = candidate;
+            this.receiver = receiver;
+            Class<?>[] types = candidate.parameterTypes();
+            this.converters = new Converter[receiver ? 0 : types.length - 1];
+            for (int i = 0; i < converters.length; i++) {
+                converters[i] = Converters.of(types[i + 1]);
+            }
+        }
+
+        Object invoke(Object value, String[] args) {
+            if (receiver) {
+                return ReflectionCommand.invoke(candidate, value, args);
+            }
+
+            Object[] typedArgs = new Object[converters.length + 1];
+            typedArgs[0] = value;
+            for (int i = 0; i < converters.length; i++) {
+                typedArgs[i + 1] = converters[i].convert(args[i]);
+            }
+            try {
+                return candidate.invoker().invoke(null, typedArgs);
+            } catch (VirtualMachineError e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new RuntimeException("Failed to invoke method: " + candidate.method().getName(), e);
+            }
+        }
+    }
+
+    // Results are often instances of non-public implementation classes (e.g.
+    // List.of); their methods must be called through a public supertype.
+    private static MethodTable.Candidate accessible(Class<?> type, MethodTable.Candidate candidate, int argCount) {
+        if (Modifier.isPublic(candidate.method().getDeclaringClass().getModifiers())) {
+            return candidate;
+        }
+
+        Deque<Class<?>> pending = new ArrayDeque<>();
+        Set<Class<?>> seen = new HashSet<>();
+        pending.add(type);
+        while (!pending.isEmpty()) {
+            Class<?> current = pending.poll();
+            if (!seen.add(current)) {
+                continue;
+            }
+            if (Modifier.isPublic(current.getModifiers())) {
+                for (MethodTable.Candidate other : MethodTable.of(current).candidates(candidate.method().getName(),
+                        argCount)) {
+                    if (!other.isStatic() && Arrays.equals(other.parameterTypes(), candidate.parameterTypes())) {
+                        return other;
+                    }
+                }
+            }
+            if (current.getSuperclass() != null) {
+                pending.add(current.getSuperclass());
+            }
+            pending.addAll(Arrays.asList(current.getInterfaces()));
+        }
+        return candidate;
+    }
+
+    private static Class<?> boxed(Class<?> type) {
+        return type.isPrimitive() ? MethodType.methodType(type).wrap().returnType() : type;
+    }
+}
@@ -0,0 +1,59 @@
+package jcli.core;
+
+/**
+ * The converters for one overload's parameters, looked up once when the
+ * overload is first called and reused for every later call (see
+ * {@link MethodTable.Candidate#plan()}).
+ */
+public final class ConversionPlan {
+
+    private final Converter[] fixed;
+    // null unless the last parameter is varargs
+    private final Converters.VarArgs varArgs;
+    private final Fits.Fit[] fixedFits;
+    private final Fits.Fit varArgsFit;
+
+    ConversionPlan(Class<?>[] parameterTypes, boolean isVarArgs) {
+        int fixedCount = isVarArgs ? parameterTypes.length - 1 : parameterTypes.length;
+        this.fixed = new Converter[fixedCount];
+        this.fixedFits = new Fits.Fit[fixedCount];
+        for (int i = 0; i < fixedCount; i++) {
+            fixed[i] = Converters.of(parameterTypes[i]);
+            fixedFits[i] = Fits.of(parameterTypes[i]);
+        }
+        this.varArgs = isVarArgs ? Converters.varArgs(parameterTypes[fixedCount].getComponentType()) : null;
+        this.varArgsFit = isVarArgs ? Fits.of(parameterTypes[fixedCount].getComponentType()) : null;
+    }
+
+    /**
+     * How well {@code args} fit this overload, without converting them: the
+     * sum of the {@link Fits} scores, or {@code -(i + 1)} if argument
+     * {@code i} cannot be converted. Never throws.
+     */
+    int score(CharSequence[] args) {
+        int total = 0;
+        for (int i = 0; i < args.length; i++) {
+            int score = i < fixedFits.length ? fixedFits[i].score(args[i]) : varArgsFit.score(args[i]);
+            if (score == Fits.NONE) {
+                return -(i + 1);
+            }
+            total += score;
+        }
+        return total;
+    }
+
+    /**
+     * Converts {@code args}, whose count the overload must accept, into the
+     * invocation's argument array; trailing varargs are packed into one array.
+     */
+    public Object[] convert(CharSequence[] args) {
+        Object[] typedArgs = new Object[varArgs == null ? fixed.length : fixed.length + 1];
+        for (int i = 0; i < fixed.length; i++) {
+            typedArgs[i] = fixed[i].convert(args[i]);
+        }
+        if (varArgs != null) {
+            typedArgs[fixed.length] = varArgs.pack(args, fixed.length);
+        }
+        return typedArgs;
+    }
+}
@@ -0,0 +1,11 @@
+package jcli.core;
+
+/**
+ * Turns one command-line argument into a value of a parameter type. The
+ * argument is a {@code String}, or a lazily decoded view for {@code @file}
+ * and stdin input.
+ */
+@FunctionalInterface
+public interface Converter {
+    Object convert(CharSequence arg);
+}
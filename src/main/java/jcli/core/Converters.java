@@ -0,0 +1,239 @@
+package jcli.core;
+
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Registry of argument {@link Converter}s by parameter type. Built-in types
+ * are registered up front; enums and arrays get a converter derived on first
+ * use, which is cached like the rest, so a lookup is a single map access and
+ * adding types never lengthens it.
+ *
+ * <p>
+ * {@link #register} adds or replaces a type. Overload resolution consults
+ * the registry when a class's {@link MethodTable} is first built, so register
+ * before dispatching to methods that take the type.
+ */
+public final class Converters {
+
+    // Marks types with no converter, so unsupported lookups are cached too
+    private static final Converter UNSUPPORTED = arg -> {
+        throw new IllegalStateException("unsupported");
+    };
+
+    private static final Map<Class<?>, Converter> CONVERTERS = new ConcurrentHashMap<>();
+
+    static {
+        Converter text = Converters::text;
+        CONVERTERS.put(String.class, text);
+        // Object parameters get a String so equals/instanceof in the target behave
+        CONVERTERS.put(Object.class, text);
+        // CharSequence parameters take lazily decoded inputs as they are
+        CONVERTERS.put(CharSequence.class, arg -> arg);
+
+        Converter toInt = arg -> Integer.parseInt(text(arg));
+        CONVERTERS.put(int.class, toInt);
+        CONVERTERS.put(Integer.class, toInt);
+        Converter toLong = arg -> Long.parseLong(text(arg));
+        CONVERTERS.put(long.class, toLong);
+        CONVERTERS.put(Long.class, toLong);
+        Converter toBoolean = arg -> Boolean.parseBoolean(text(arg));
+        CONVERTERS.put(boolean.class, toBoolean);
+        CONVERTERS.put(Boolean.class, toBoolean);
+        Converter toDouble = arg -> Double.parseDouble(text(arg));
+        CONVERTERS.put(double.class, toDouble);
+        CONVERTERS.put(Double.class, toDouble);
+        Converter toFloat = arg -> Float.parseFloat(text(arg));
+        CONVERTERS.put(float.class, toFloat);
+        CONVERTERS.put(Float.class, toFloat);
+        Converter toShort = arg -> Short.parseShort(text(arg));
+        CONVERTERS.put(short.class, toShort);
+        CONVERTERS.put(Short.class, toShort);
+        Converter toByte = arg -> Byte.parseByte(text(arg));
+        CONVERTERS.put(byte.class, toByte);
+        CONVERTERS.put(Byte.class, toByte);
+        Converter toChar = Converters::toChar;
+        CONVERTERS.put(char.class, toChar);
+        CONVERTERS.put(Character.class, toChar);
+
+        CONVERTERS.put(Class.class, arg -> {
+            try {
+                return Class.forName(text(arg));
+            } catch (ClassNotFoundException e) {
+                throw new IllegalArgumentException("Class not found: " + arg);
+            }
+        });
+
+        CONVERTERS.put(BigDecimal.class, arg -> new BigDecimal(text(arg)));
+        CONVERTERS.put(BigInteger.class, arg -> new BigInteger(text(arg)));
+        CONVERTERS.put(Path.class, arg -> Path.of(text(arg)));
+        CONVERTERS.put(Duration.class, arg -> Duration.parse(text(arg)));
+    }
+
+    private Converters() {
+    }
+
+    /**
+     * Registers (or replaces) the converter for {@code type}.
+     */
+    public static <T> void register(Class<T> type, Function<String, ? extends T> parser) {
+        CONVERTERS.put(type, arg -> parser.apply(text(arg)));
+    }
+
+    public static boolean supports(Class<?> type) {
+        return lookup(type) != UNSUPPORTED;
+    }
+
+    /**
+     * @throws IllegalArgumentException if {@code type} has no converter
+     */
+    public static Converter of(Class<?> type) {
+        Converter converter = lookup(type);
+        if (converter == UNSUPPORTED) {
+            throw new IllegalArgumentException("Unsupported argument type: " + type.getName());
+        }
+        return converter;
+    }
+
+    private static Converter lookup(Class<?> type) {
+        Converter converter = CONVERTERS.get(type);
+        if (converter == null) {
+            // Not computeIfAbsent: deriving an array converter looks up its component
+            converter = derive(type);
+            Converter raced = CONVERTERS.putIfAbsent(type, converter);
+            if (raced != null) {
+                converter = raced;
+            }
+        }
+        return converter;
+    }
+
+    private static Converter derive(Class<?> type) {
+        if (type.isEnum()) {
+            return arg -> toEnum(type, text(arg));
+        }
+        if (type.isArray() && supports(type.getComponentType())) {
+            if (PrimitiveArrays.supports(type)) {
+                return arg -> PrimitiveArrays.parse(type, arg);
+            }
+            Converter component = of(type.getComponentType());
+            return arg -> toArray(type.getComponentType(), component, text(arg));
+        }
+        return UNSUPPORTED;
+    }
+
+    /**
+     * Packs the trailing arguments from {@code from} on into a varargs array.
+     */
+    interface VarArgs {
+        Object pack(CharSequence[] args, int from);
+    }
+
+    // int, long and double fill the primitive array directly; other component
+    // types use their registered converter. A component without one can only
+    // be passed as an empty array, as in JsonPath.read(String, String, Predicate...)
+    static VarArgs varArgs(Class<?> componentType) {
+        if (!supports(componentType)) {
+            return (args, from) -> {
+                if (args.length > from) {
+                    throw new IllegalArgumentException("Unsupported argument type: " + componentType.getName());
+                }
+                return Array.newInstance(componentType, 0);
+            };
+        }
+        if (componentType == int.class) {
+            return (args, from) -> {
+                int[] array = new int[args.length - from];
+                for (int i = 0; i < array.length; i++) {
+                    array[i] = Integer.parseInt(text(args[from + i]));
+                }
+                return array;
+            };
+        }
+        if (componentType == long.class) {
+            return (args, from) -> {
+                long[] array = new long[args.length - from];
+                for (int i = 0; i < array.length; i++) {
+                    array[i] = Long.parseLong(text(args[from + i]));
+                }
+                return array;
+            };
+        }
+        if (componentType == double.class) {
+            return (args, from) -> {
+                double[] array = new double[args.length - from];
+                for (int i = 0; i < array.length; i++) {
+                    array[i] = Double.parseDouble(text(args[from + i]));
+                }
+                return array;
+            };
+        }
+
+        Converter component = of(componentType);
+        if (componentType.isPrimitive()) {
+            return (args, from) -> {
+                Object array = Array.newInstance(componentType, args.length - from);
+                for (int i = from; i < args.length; i++) {
+                    Array.set(array, i - from, component.convert(args[i]));
+                }
+                return array;
+            };
+        }
+        return (args, from) -> {
+            Object[] array = (Object[]) Array.newInstance(componentType, args.length - from);
+            for (int i = from; i < args.length; i++) {
+                array[i - from] = component.convert(args[i]);
+            }
+            return array;
+        };
+    }
+
+    private static String text(CharSequence arg) {
+        return arg == null ? null : arg.toString();
+    }
+
+    private static Character toChar(CharSequence arg) {
+        if (arg == null || arg.length() != 1) {
+            throw new IllegalArgumentException("Expected a single character but got: " + arg);
+        }
+        return arg.charAt(0);
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static Object toEnum(Class<?> type, String arg) {
+        return Enum.valueOf((Class<? extends Enum>) type, arg);
+    }
+
+    // JSON array (e.g. ["a", "b"]) or, failing that, a comma-separated list;
+    // only text in brackets is tried as JSON, so plain lists never throw
+    private static Object toArray(Class<?> componentType, Converter component, String arg) {
+        try {
+            Object parsed = arg.strip().startsWith("[") ? net.minidev.json.JSONValue.parse(arg) : null;
+            if (parsed instanceof net.minidev.json.JSONArray) {
+                net.minidev.json.JSONArray jsonArray = (net.minidev.json.JSONArray) parsed;
+                Object array = Array.newInstance(componentType, jsonArray.size());
+                for (int i = 0; i < jsonArray.size(); i++) {
+                    // Elements come back as Long/Double/Boolean/String; reuse the
+                    // String conversion so they follow the same rules
+                    Array.set(array, i, component.convert(String.valueOf(jsonArray.get(i))));
+                }
+                return array;
+            }
+        } catch (Exception e) {
+            // Not JSON (or elements of the wrong type); try comma-separated
+        }
+
+        String[] parts = arg.split(",");
+        Object array = Array.newInstance(componentType, parts.length);
+        for (int i = 0; i < parts.length; i++) {
+            Array.set(array, i, component.convert(parts[i].trim()));
+        }
+        return array;
+    }
+}
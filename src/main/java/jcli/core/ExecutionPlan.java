@@ -0,0 +1,180 @@
+package jcli.core;
+
+import jcli.config.CommandConfig;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The outcome of resolving a command's strategy for a method name and argument
+ * count: which overloads may be called and where the receiver comes from.
+ * This only depends on the argument count, so one plan can execute any number
+ * of argument lists of that length. When several overloads take that many
+ * arguments, {@link OverloadResolver} picks one per argument list.
+ */
+public final class ExecutionPlan {
+
+    private enum Receiver {
+        // Static method, all args are method args
+        NONE,
+        // Instance built with the no-arg constructor, all args are method args
+        DEFAULT_CONSTRUCTOR,
+        // args[0] used verbatim as the receiver (INSTANCE strategy)
+        TEXT,
+        // args[0] converted via factory, String identity or constructor
+        CONVERTED
+    }
+
+    private final CommandConfig config;
+    private final Class<?> targetClass;
+    private final String method;
+    // Best ranked first; never empty
+    private final List<MethodTable.Candidate> candidates;
+    private final Receiver receiver;
+
+    private ExecutionPlan(CommandConfig config, Class<?> targetClass, String method,
+            List<MethodTable.Candidate> candidates, Receiver receiver) {
+        this.config = config;
+        this.targetClass = targetClass;
+        this.method = method;
+        this.candidates = candidates;
+        this.receiver = receiver;
+    }
+
+    /**
+     * Resolves how {@code method} is called with {@code argCount} arguments.
+     *
+     * @throws IllegalArgumentException if no overload matches, with a diagnosis
+     */
+    public static ExecutionPlan resolve(CommandConfig config, Class<?> targetClass, String method, int argCount) {
+        MethodTable table = MethodTable.of(targetClass);
+        switch (config.strategy()) {
+            case STATIC:
+                return new ExecutionPlan(config, targetClass, method, require(table, targetClass, method, argCount),
+                        Receiver.NONE);
+            case INSTANCE:
+                if (argCount < 1) {
+                    throw new IllegalArgumentException(
+                            "Instance command requires at least one argument (the instance)");
+                }
+                return new ExecutionPlan(config, targetClass, method,
+                        require(table, targetClass, method, argCount - 1), Receiver.TEXT);
+            default:
+                return resolveHybrid(config, targetClass, table, method, argCount);
+        }
+    }
+
+    private static ExecutionPlan resolveHybrid(CommandConfig config, Class<?> targetClass, MethodTable table,
+            String method, int argCount) {
+        // 1. Try static match with ALL args
+        List<MethodTable.Candidate> matches = table.candidates(method, argCount);
+        if (!matches.isEmpty() && matches.get(0).isStatic()) {
+            return new ExecutionPlan(config, targetClass, method, filter(matches, true), Receiver.NONE);
+        }
+
+        // 2. Try Instance Match with Default Constructor
+        // If class has default constructor, we can try using it as the instance
+        // and passing ALL args to the method.
+        boolean hasDefaultConstructor = config.constructors() != null
+                ? config.constructors().contains(InstanceConstructor.NO_ARG)
+                : Receivers.of(targetClass).hasNoArgConstructor();
+
+        if (hasDefaultConstructor && !matches.isEmpty()) {
+            return new ExecutionPlan(config, targetClass, method, matches, Receiver.DEFAULT_CONSTRUCTOR);
+        }
+
+        // 3. Try Instance Match with Argument 0 as Instance Source
+        // (Legacy behavior / String constructor behavior)
+        if (argCount > 0) {
+            List<MethodTable.Candidate> instanceMatches = table.candidates(method, argCount - 1);
+            if (!instanceMatches.isEmpty() && !instanceMatches.get(0).isStatic()) {
+                return new ExecutionPlan(config, targetClass, method, filter(instanceMatches, false),
+                        Receiver.CONVERTED);
+            }
+        }
+
+        // Diagnosis, from facts the table recorded when it was built
+        if (argCount > 0) {
+            throw new IllegalArgumentException(table.diagnose(method, argCount, argCount - 1));
+        }
+        throw new IllegalArgumentException(table.diagnose(method, argCount));
+    }
+
+    private static List<MethodTable.Candidate> require(MethodTable table, Class<?> targetClass, String method,
+            int argCount) {
+        List<MethodTable.Candidate> candidates = table.candidates(method, argCount);
+        if (candidates.isEmpty()) {
+            throw new IllegalArgumentException("No public method found: " + method + " with " + argCount
+                    + " arguments in " + targetClass.getName());
+        }
+        return candidates;
+    }
+
+    // The static or the instance overloads, in rank order
+    private static List<MethodTable.Candidate> filter(List<MethodTable.Candidate> candidates, boolean isStatic) {
+        List<MethodTable.Candidate> filtered = new ArrayList<>(candidates.size());
+        for (MethodTable.Candidate candidate : candidates) {
+            if (candidate.isStatic() == isStatic) {
+                filtered.add(candidate);
+            }
+        }
+        return filtered.size() == candidates.size() ? candidates : List.copyOf(filtered);
+    }
+
+    /**
+     * Runs the plan against {@code args}, which must have the length the plan
+     * was resolved for.
+     */
+    public Object execute(CharSequence[] args) throws Exception {
+        switch (receiver) {
+            case NONE:
+                return ReflectionCommand.invoke(select(args), null, args);
+            case DEFAULT_CONSTRUCTOR: {
+                MethodTable.Candidate candidate = select(args);
+                Object instance = Receivers.of(targetClass).newDefault();
+                Timings.mark("receiver construction");
+                return ReflectionCommand.invoke(candidate, instance, args);
+            }
+            case TEXT: {
+                CharSequence[] methodArgs = Arrays.copyOfRange(args, 1, args.length);
+                return ReflectionCommand.invoke(select(methodArgs), args[0].toString(), methodArgs);
+            }
+            default: {
+                CharSequence[] methodArgs = Arrays.copyOfRange(args, 1, args.length);
+                MethodTable.Candidate candidate = select(methodArgs);
+                Object instance = createReceiver(args[0].toString());
+                Timings.mark("receiver construction");
+                return ReflectionCommand.invoke(candidate, instance, methodArgs);
+            }
+        }
+    }
+
+    // A lone overload is called as is; its converters report bad arguments
+    private MethodTable.Candidate select(CharSequence[] methodArgs) {
+        if (candidates.size() == 1) {
+            return candidates.get(0);
+        }
+        MethodTable.Candidate candidate = OverloadResolver.resolve(method, candidates, methodArgs);
+        Timings.mark("overload selection");
+        return candidate;
+    }
+
+    // Immutable receivers are shared between calls with the same text
+    private Object createReceiver(String instanceText) {
+        if (targetClass.equals(String.class) && config.factory() == null) {
+            return instanceText;
+        }
+        return Receivers.of(targetClass).cached(config.factory(), instanceText, this::buildReceiver);
+    }
+
+    private Object buildReceiver(String instanceText) {
+        if (config.factory() != null) {
+            return ReflectionCommand.invoke(null, targetClass, config.factory(), new String[] { instanceText });
+        } else if (targetClass.equals(String.class)) {
+            return instanceText;
+        } else {
+            return ReflectionCommand.createInstance(targetClass, instanceText, config.constructors());
+        }
+    }
+}
@@ -0,0 +1,381 @@
+package jcli.core;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Non-throwing "try-parse" checks that tell how well an argument fits a
+ * parameter type, without converting it. {@link OverloadResolver} adds them up
+ * to rank overloads, so a text that is not a number never reaches
+ * {@code Integer.parseInt}.
+ *
+ * <p>
+ * A higher score is a more specific fit. An integer fits {@code int} best,
+ * then {@code long}, {@code BigInteger} and the floating-point types; any text
+ * fits {@code String}, and {@code Object} least of all. Registered types,
+ * whose converters cannot be checked without running them, score between the
+ * two. Each check accepts what its converter in {@link Converters} would,
+ * with two exceptions: {@code boolean} only takes {@code true} or
+ * {@code false} (in any case), and {@code Class} takes any well-formed name,
+ * since only loading it would tell.
+ */
+final class Fits {
+
+    /**
+     * Scores one argument against one parameter type; {@link #NONE} if it
+     * cannot be converted.
+     */
+    @FunctionalInterface
+    interface Fit {
+        int score(CharSequence arg);
+    }
+
+    static final int NONE = 0;
+    static final int ANY = 1;
+    static final int TEXT = 2;
+    static final int UNCHECKED = 3;
+    static final int SHAPED = 4;
+    static final int FLOAT = 5;
+    static final int DECIMAL = 6;
+    static final int DOUBLE = 7;
+    static final int WIDE = 8;
+    static final int LONG = 9;
+    static final int EXACT = 10;
+
+    // Array elements checked per argument; a longer array is judged by its start
+    private static final int ARRAY_SAMPLE = 1 << 16;
+
+    private static final Map<Class<?>, Fit> BUILT_IN = Map.ofEntries(
+            Map.entry(Object.class, arg -> ANY),
+            Map.entry(String.class, arg -> TEXT),
+            Map.entry(CharSequence.class, arg -> TEXT),
+            Map.entry(Path.class, arg -> arg == null ? NONE : TEXT),
+            Map.entry(int.class, arg -> fitsRange(arg, Integer.MIN_VALUE, Integer.MAX_VALUE) ? EXACT : NONE),
+            Map.entry(Integer.class, arg -> fitsRange(arg, Integer.MIN_VALUE, Integer.MAX_VALUE) ? EXACT : NONE),
+            Map.entry(long.class, arg -> fitsRange(arg, Long.MIN_VALUE, Long.MAX_VALUE) ? LONG : NONE),
+            Map.entry(Long.class, arg -> fitsRange(arg, Long.MIN_VALUE, Long.MAX_VALUE) ? LONG : NONE),
+            Map.entry(short.class, arg -> fitsRange(arg, Short.MIN_VALUE, Short.MAX_VALUE) ? WIDE : NONE),
+            Map.entry(Short.class, arg -> fitsRange(arg, Short.MIN_VALUE, Short.MAX_VALUE) ? WIDE : NONE),
+            Map.entry(byte.class, arg -> fitsRange(arg, Byte.MIN_VALUE, Byte.MAX_VALUE) ? WIDE : NONE),
+            Map.entry(Byte.class, arg -> fitsRange(arg, Byte.MIN_VALUE, Byte.MAX_VALUE) ? WIDE : NONE),
+            Map.entry(BigInteger.class, arg -> isInteger(arg) ? WIDE : NONE),
+            Map.entry(double.class, arg -> isFloatingPoint(arg) ? DOUBLE : NONE),
+            Map.entry(Double.class, arg -> isFloatingPoint(arg) ? DOUBLE : NONE),
+            Map.entry(BigDecimal.class, arg -> isDecimal(arg) ? DECIMAL : NONE),
+            Map.entry(float.class, arg -> isFloatingPoint(arg) ? FLOAT : NONE),
+            Map.entry(Float.class, arg -> isFloatingPoint(arg) ? FLOAT : NONE),
+            Map.entry(boolean.class, arg -> isBoolean(arg) ? EXACT : NONE),
+            Map.entry(Boolean.class, arg -> isBoolean(arg) ? EXACT : NONE),
+            Map.entry(char.class, arg -> arg != null && arg.length() == 1 ? SHAPED : NONE),
+            Map.entry(Character.class, arg -> arg != null && arg.length() == 1 ? SHAPED : NONE),
+            Map.entry(Class.class, arg -> isClassName(arg) ? SHAPED : NONE),
+            Map.entry(Duration.class, arg -> isDuration(arg) ? SHAPED : NONE));
+
+    private static final ClassValue<Fit> FITS = new ClassValue<>() {
+        @Override
+        protected Fit computeValue(Class<?> type) {
+            return derive(type);
+        }
+    };
+
+    private Fits() {
+    }
+
+    static Fit of(Class<?> type) {
+        return FITS.get(type);
+    }
+
+    private static Fit derive(Class<?> type) {
+        Fit fit = BUILT_IN.get(type);
+        if (fit != null) {
+            return fit;
+        }
+        if (type.isEnum()) {
+            Set<String> names = new HashSet<>();
+            int longest = 0;
+            for (Object constant : type.getEnumConstants()) {
+                String name = ((Enum<?>) constant).name();
+                names.add(name);
+                longest = Math.max(longest, name.length());
+            }
+            int maxLength = longest;
+            return arg -> arg != null && arg.length() <= maxLength && names.contains(arg.toString()) ? EXACT : NONE;
+        }
+        if (type.isArray() && !type.getComponentType().isArray()) {
+            Fit element = of(type.getComponentType());
+            // PrimitiveArrays reads int and long elements as ASCII digits only
+            Fit component = type == int[].class || type == long[].class
+                    ? arg -> isAscii(arg) ? element.score(arg) : NONE
+                    : element;
+            return arg -> arrayScore(component, arg);
+        }
+        return arg -> UNCHECKED;
+    }
+
+    /**
+     * Whether {@code text} is an integer within {@code [min, max]}, as
+     * {@code Long.parseLong} (and so {@code Integer.parseInt}, ...) reads it.
+     */
+    static boolean fitsRange(CharSequence text, long min, long max) {
+        if (text == null || text.isEmpty()) {
+            return false;
+        }
+        int i = 0;
+        boolean negative = false;
+        char first = text.charAt(0);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            if (text.length() == 1) {
+                return false;
+            }
+            i = 1;
+        }
+        // Accumulated negatively, which reaches Long.MIN_VALUE without overflow
+        long limit = negative ? min : -max;
+        long multiplyMin = limit / 10;
+        long result = 0;
+        for (; i < text.length(); i++) {
+            int digit = Character.digit(text.charAt(i), 10);
+            if (digit < 0 || result < multiplyMin) {
+                return false;
+            }
+            result *= 10;
+            if (result < limit + digit) {
+                return false;
+            }
+            result -= digit;
+        }
+        return true;
+    }
+
+    // Any number of digits, as new BigInteger(String) reads them
+    private static boolean isInteger(CharSequence text) {
+        if (text == null) {
+            return false;
+        }
+        int i = sign(text, 0);
+        if (i == text.length()) {
+            return false;
+        }
+        for (; i < text.length(); i++) {
+            if (Character.digit(text.charAt(i), 10) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // As new BigDecimal(String): digits with an optional point and exponent
+    private static boolean isDecimal(CharSequence text) {
+        if (text == null) {
+            return false;
+        }
+        int end = text.length();
+        int i = sign(text, 0);
+        int digits = 0;
+        for (; i < end && Character.isDigit(text.charAt(i)); i++) {
+            digits++;
+        }
+        if (i < end && text.charAt(i) == '.') {
+            for (i++; i < end && Character.isDigit(text.charAt(i)); i++) {
+                digits++;
+            }
+        }
+        if (digits == 0) {
+            return false;
+        }
+        if (i < end && (text.charAt(i) == 'e' || text.charAt(i) == 'E')) {
+            return isExponent(text, i + 1, end, false);
+        }
+        return i == end;
+    }
+
+    // As Double.parseDouble and Float.parseFloat: surrounding whitespace,
+    // NaN, Infinity, type suffixes and hexadecimal significands included
+    private static boolean isFloatingPoint(CharSequence text) {
+        if (text == null) {
+            return false;
+        }
+        int start = 0;
+        int end = text.length();
+        while (start < end && text.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && text.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        int i = sign(text, start);
+        if (matches(text, i, end, "NaN", false) || matches(text, i, end, "Infinity", false)) {
+            return true;
+        }
+        boolean hex = end - i > 2 && text.charAt(i) == '0' && (text.charAt(i + 1) == 'x' || text.charAt(i + 1) == 'X');
+        if (hex) {
+            i += 2;
+        }
+        int digits = 0;
+        for (; i < end && isDigit(text.charAt(i), hex); i++) {
+            digits++;
+        }
+        if (i < end && text.charAt(i) == '.') {
+            for (i++; i < end && isDigit(text.charAt(i), hex); i++) {
+                digits++;
+            }
+        }
+        if (digits == 0) {
+            return false;
+        }
+        if (i < end && (hex ? text.charAt(i) == 'p' || text.charAt(i) == 'P'
+                : text.charAt(i) == 'e' || text.charAt(i) == 'E')) {
+            return isExponent(text, i + 1, end, true);
+        }
+        // A hexadecimal significand requires its binary exponent
+        return !hex && (i == end || i == end - 1 && isTypeSuffix(text.charAt(i)));
+    }
+
+    // Signed digits up to end; floating-point exponents take ASCII digits only
+    // and may be followed by a type suffix
+    private static boolean isExponent(CharSequence text, int start, int end, boolean floatingPoint) {
+        int i = sign(text, start);
+        int digits = 0;
+        for (; i < end && (floatingPoint ? isDigit(text.charAt(i), false) : Character.isDigit(text.charAt(i))); i++) {
+            digits++;
+        }
+        return digits > 0 && (i == end || floatingPoint && i == end - 1 && isTypeSuffix(text.charAt(i)));
+    }
+
+    private static boolean isBoolean(CharSequence text) {
+        return text != null && (text.length() == 4 || text.length() == 5)
+                && (matches(text, 0, text.length(), "true", true) || matches(text, 0, text.length(), "false", true));
+    }
+
+    // A binary name such as java.util.Map$Entry, or an array descriptor
+    private static boolean isClassName(CharSequence text) {
+        if (text == null || text.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (!Character.isJavaIdentifierPart(c) && c != '.' && c != '[' && c != ';') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // ISO-8601 durations start with P, after an optional sign
+    private static boolean isDuration(CharSequence text) {
+        if (text == null) {
+            return false;
+        }
+        int i = sign(text, 0);
+        return text.length() - i > 1 && (text.charAt(i) == 'P' || text.charAt(i) == 'p');
+    }
+
+    /**
+     * The lowest element score of a JSON array or comma-separated list, as
+     * {@link Converters} and {@link PrimitiveArrays} split them. Quotes around
+     * JSON elements are dropped.
+     */
+    private static int arrayScore(Fit component, CharSequence text) {
+        if (text == null) {
+            return NONE;
+        }
+        int start = 0;
+        int end = text.length();
+        while (start < end && text.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && text.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        if (end - start >= 2 && text.charAt(start) == '[' && text.charAt(end - 1) == ']') {
+            start++;
+            end--;
+            while (start < end && text.charAt(start) <= ' ') {
+                start++;
+            }
+            if (start == end) {
+                // An empty array fits any component type
+                return UNCHECKED;
+            }
+        }
+        int limit = Math.min(end, start + ARRAY_SAMPLE);
+        // Stays UNCHECKED if the sample ends inside the first element
+        int score = UNCHECKED;
+        boolean scored = false;
+        int element = start;
+        boolean quoted = false;
+        for (int i = start; i <= limit; i++) {
+            char c = i < limit ? text.charAt(i) : ',';
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (c == ',' && !quoted || i == limit) {
+                if (i == limit && limit < end) {
+                    // Cut off by the sample
+                    break;
+                }
+                int elementScore = elementScore(component, text, element, i);
+                score = scored ? Math.min(score, elementScore) : elementScore;
+                scored = true;
+                if (score == NONE) {
+                    return NONE;
+                }
+                element = i + 1;
+            }
+        }
+        return score;
+    }
+
+    private static int elementScore(Fit component, CharSequence text, int start, int end) {
+        while (start < end && text.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && text.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        if (end - start >= 2 && text.charAt(start) == '"' && text.charAt(end - 1) == '"') {
+            start++;
+            end--;
+        }
+        return component.score(text.subSequence(start, end));
+    }
+
+    private static boolean isAscii(CharSequence text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int sign(CharSequence text, int i) {
+        return i < text.length() && (text.charAt(i) == '-' || text.charAt(i) == '+') ? i + 1 : i;
+    }
+
+    private static boolean matches(CharSequence text, int start, int end, String expected, boolean ignoreCase) {
+        if (end - start != expected.length()) {
+            return false;
+        }
+        for (int i = 0; i < expected.length(); i++) {
+            char c = text.charAt(start + i);
+            if (c != expected.charAt(i) && !(ignoreCase && Character.toLowerCase(c) == expected.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isDigit(char c, boolean hex) {
+        return c >= '0' && c <= '9' || hex && (c >= 'a' && c <= 'f' || c >= 'A' && c <= 'F');
+    }
+
+    private static boolean isTypeSuffix(char c) {
+        return c == 'f' || c == 'F' || c == 'd' || c == 'D';
+    }
+}
@@ -0,0 +1,12 @@
+package jcli.core;
+
+/**
+ * Public constructors that can be used to build a receiver for an instance
+ * method. Bit positions in the command index follow the declaration order.
+ */
+public enum InstanceConstructor {
+    NO_ARG,
+    STRING,
+    LONG,
+    INT
+}
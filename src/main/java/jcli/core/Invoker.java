@@ -0,0 +1,10 @@
+package jcli.core;
+
+/**
+ * Calls a resolved method with already-converted arguments. {@code receiver}
+ * is ignored for static methods.
+ */
+@FunctionalInterface
+public interface Invoker {
+    Object invoke(Object receiver, Object[] args) throws Throwable;
+}
@@ -0,0 +1,186 @@
+package jcli.core;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Creates {@link Invoker}s for resolved methods. The engine is picked with
+ * {@code -Djcli.invoker=reflect|methodhandle|lambda}:
+ *
+ * <ul>
+ * <li>{@code reflect} (default) calls {@link Method#invoke}.</li>
+ * <li>{@code methodhandle} adapts the method to a
+ * {@code (Object, Object[])Object} handle, which the JIT can inline through
+ * once the invoker is hot.</li>
+ * <li>{@code lambda} starts like {@code methodhandle} and, after
+ * {@code jcli.invoker.hotThreshold} calls (default 10000), swaps in a
+ * {@link LambdaMetafactory}-spun accessor for methods with up to two
+ * arguments (counting the receiver) and a non-void result.</li>
+ * </ul>
+ *
+ * Engines that cannot handle a method (for example a public method declared by
+ * a non-public class) fall back to reflection. Runtime-spun lambdas are not
+ * available in native images, so the default stays on reflection.
+ */
+public final class Invokers {
+
+    public enum Engine {
+        REFLECT,
+        METHOD_HANDLE,
+        LAMBDA;
+
+        static Engine fromProperty() {
+            String value = System.getProperty("jcli.invoker", "reflect");
+            switch (value.toLowerCase()) {
+                case "methodhandle":
+                case "method_handle":
+                    return METHOD_HANDLE;
+                case "lambda":
+                    return LAMBDA;
+                default:
+                    return REFLECT;
+            }
+        }
+    }
+
+    static final Engine ENGINE = Engine.fromProperty();
+
+    private static final int HOT_THRESHOLD = Integer.getInteger("jcli.invoker.hotThreshold", 10_000);
+
+    private static final MethodType UNIFORM = MethodType.methodType(Object.class, Object.class, Object[].class);
+
+    private Invokers() {
+    }
+
+    public static Invoker create(Method method) {
+        return create(method, ENGINE);
+    }
+
+    public static Invoker create(Method method, Engine engine) {
+        switch (engine) {
+            case METHOD_HANDLE:
+                return methodHandle(method);
+            case LAMBDA:
+                return new HotInvoker(method, methodHandle(method));
+            default:
+                return reflective(method);
+        }
+    }
+
+    private static Invoker reflective(Method method) {
+        return (receiver, args) -> {
+            try {
+                return method.invoke(receiver, args);
+            } catch (java.lang.reflect.InvocationTargetException e) {
+                throw e.getCause();
+            }
+        };
+    }
+
+    private static Invoker methodHandle(Method method) {
+        MethodHandle handle;
+        try {
+            handle = MethodHandles.publicLookup().unreflect(method).asFixedArity();
+        } catch (IllegalAccessException e) {
+            return reflective(method);
+        }
+        if (Modifier.isStatic(method.getModifiers())) {
+            handle = MethodHandles.dropArguments(handle, 0, Object.class);
+        }
+        MethodHandle uniform = handle
+                .asSpreader(Object[].class, method.getParameterCount())
+                .asType(UNIFORM);
+        return (receiver, args) -> (Object) uniform.invokeExact(receiver, args);
+    }
+
+    /**
+     * Spins a functional-interface accessor for {@code method}, or returns
+     * {@code null} if its shape is not covered.
+     */
+    @SuppressWarnings("unchecked")
+    static Invoker lambda(Method method) {
+        boolean isStatic = Modifier.isStatic(method.getModifiers());
+        int arity = method.getParameterCount() + (isStatic ? 0 : 1);
+        if (method.getReturnType() == void.class || method.isVarArgs() || arity > 2) {
+            return null;
+        }
+
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            MethodHandle target = MethodHandles.publicLookup().unreflect(method);
+            MethodType instantiated = target.type().wrap();
+            switch (arity) {
+                case 0: {
+                    Supplier<Object> supplier = (Supplier<Object>) spin(lookup, target, instantiated,
+                            Supplier.class, "get", MethodType.methodType(Object.class));
+                    return (receiver, args) -> supplier.get();
+                }
+                case 1: {
+                    Function<Object, Object> function = (Function<Object, Object>) spin(lookup, target, instantiated,
+                            Function.class, "apply", MethodType.methodType(Object.class, Object.class));
+                    return isStatic
+                            ? (receiver, args) -> function.apply(args[0])
+                            : (receiver, args) -> function.apply(receiver);
+                }
+                default: {
+                    BiFunction<Object, Object, Object> function = (BiFunction<Object, Object, Object>) spin(lookup,
+                            target, instantiated, BiFunction.class, "apply",
+                            MethodType.methodType(Object.class, Object.class, Object.class));
+                    return isStatic
+                            ? (receiver, args) -> function.apply(args[0], args[1])
+                            : (receiver, args) -> function.apply(receiver, args[0]);
+                }
+            }
+        } catch (Throwable t) {
+            return null;
+        }
+    }
+
+    private static Object spin(MethodHandles.Lookup lookup, MethodHandle target, MethodType instantiated,
+            Class<?> samType, String samName, MethodType erasedSam) throws Throwable {
+        CallSite site = LambdaMetafactory.metafactory(
+                lookup,
+                samName,
+                MethodType.methodType(samType),
+                erasedSam,
+                target,
+                instantiated);
+        return site.getTarget().invoke();
+    }
+
+    // Counts calls through the method handle path and promotes itself to a
+    // spun accessor once the target is hot. Invokers are shared between
+    // threads: the delegate is volatile so a promotion is safely published,
+    // while racy counting only costs an extra spin.
+    private static final class HotInvoker implements Invoker {
+        private final Method method;
+        private volatile Invoker delegate;
+        private int calls;
+        private boolean promoted;
+
+        HotInvoker(Method method, Invoker delegate) {
+            this.method = method;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Object invoke(Object receiver, Object[] args) throws Throwable {
+            if (!promoted && ++calls >= HOT_THRESHOLD) {
+                promoted = true;
+                Invoker spun = lambda(method);
+                if (spun != null) {
+                    delegate = spun;
+                }
+            }
+            return delegate.invoke(receiver, args);
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package jcli.core;
+
+import jcli.io.ResultWriter;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Applies a {@link Task} to every line of an input, usually one resolved
+ * {@link ExecutionPlan} (and its {@link Chain}) with each line bound to a
+ * fixed argument position. The plan, the argument template and the
+ * reader/writer buffers are shared across lines, so the per-line cost is
+ * conversion, invocation and one buffered write.
+ */
+public final class LineBatch {
+
+    static final int BUFFER_SIZE = 1 << 16;
+
+    // Lines read ahead per worker thread in parallel mode; bounds memory
+    private static final int WINDOW_PER_THREAD = 64;
+
+    /**
+     * A task may return this to write nothing for a line.
+     */
+    public static final Object NO_RESULT = new Object();
+
+    /**
+     * What is done with each line. Must be safe to call from several threads
+     * for {@link #runParallel}.
+     */
+    @FunctionalInterface
+    public interface Task {
+        Object apply(String line) throws Exception;
+    }
+
+    private final Task task;
+    // Run on the reading thread only, so it may reuse state between lines
+    private final Task sequentialTask;
+    private final int windowPerThread;
+
+    /**
+     * @param template the full argument list; the slot at {@code position} is
+     *                 overwritten with each line
+     */
+    public LineBatch(ExecutionPlan plan, Chain chain, CharSequence[] template, int position) {
+        this.task = line -> {
+            CharSequence[] args = template.clone();
+            args[position] = line;
+            return chain.apply(plan.execute(args));
+        };
+        CharSequence[] shared = template.clone();
+        this.sequentialTask = line -> {
+            shared[position] = line;
+            return chain.apply(plan.execute(shared));
+        };
+        this.windowPerThread = WINDOW_PER_THREAD;
+    }
+
+    /**
+     * @param windowPerThread lines read ahead per worker in parallel mode;
+     *                        with 1, each worker holds at most one line
+     */
+    public LineBatch(Task task, int windowPerThread) {
+        this.task = task;
+        this.sequentialTask = task;
+        this.windowPerThread = windowPerThread;
+    }
+
+    /**
+     * Processes {@code in} to completion. A line that fails is reported on
+     * {@code err} and skipped; processing continues with the next line.
+     *
+     * @return the number of lines that failed
+     */
+    public long run(Reader in, ResultWriter out, PrintStream err) throws IOException {
+        BufferedReader reader = buffered(in);
+        long lineNumber = 0;
+        long failures = 0;
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            Timings.mark("input");
+            failures += report(apply(sequentialTask, lineNumber, line), out, err);
+            Timings.mark("output");
+        }
+        out.flush();
+        return failures;
+    }
+
+    /**
+     * Like {@link #run}, but invokes the method for up to {@code threads} lines
+     * at a time on a dedicated fork-join pool. At most
+     * {@code threads * 64} lines (or the window given to the constructor) are
+     * read ahead of the output, so memory stays
+     * bounded however large the input is: once the window is full, reading
+     * waits for results to be written.
+     *
+     * @param ordered {@code true} to write results in input order, holding
+     *                finished lines back until all earlier ones are written;
+     *                {@code false} to write each result as soon as it is ready
+     */
+    public long runParallel(Reader in, ResultWriter out, PrintStream err, int threads, boolean ordered)
+            throws IOException {
+        BufferedReader reader = buffered(in);
+        int window = threads * windowPerThread;
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        // Ordered: futures in input order, the head is written first.
+        // Unordered: whatever completes first is written first.
+        Deque<Future<Outcome>> pending = new ArrayDeque<>(window);
+        CompletionService<Outcome> completed = new ExecutorCompletionService<>(pool);
+        int inFlight = 0;
+        long lineNumber = 0;
+        long failures = 0;
+
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                long number = ++lineNumber;
+                String current = line;
+                if (ordered) {
+                    if (pending.size() == window) {
+                        failures += report(await(pending.poll()), out, err);
+                    }
+                    pending.add(pool.submit(() -> apply(task, number, current)));
+                } else {
+                    if (inFlight == window) {
+                        failures += report(await(take(completed)), out, err);
+                        inFlight--;
+                    }
+                    completed.submit(() -> apply(task, number, current));
+                    inFlight++;
+                }
+            }
+            while (!pending.isEmpty()) {
+                failures += report(await(pending.poll()), out, err);
+            }
+            for (; inFlight > 0; inFlight--) {
+                failures += report(await(take(completed)), out, err);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        out.flush();
+        return failures;
+    }
+
+    private static Outcome apply(Task task, long lineNumber, String line) {
+        try {
+            return new Outcome(lineNumber, task.apply(line), null);
+        } catch (Exception e) {
+            return new Outcome(lineNumber, null, e);
+        }
+    }
+
+    private static long report(Outcome outcome, ResultWriter out, PrintStream err) throws IOException {
+        if (outcome.error() == null) {
+            if (outcome.value() == NO_RESULT) {
+                return 0;
+            }
+            try {
+                out.write(outcome.value());
+                return 0;
+            } catch (RuntimeException e) {
+                // A lazy result (e.g. a Stream) can fail while it is written
+                err.println("Error at line " + outcome.lineNumber() + ": " + e.getMessage());
+                return 1;
+            }
+        }
+        err.println("Error at line " + outcome.lineNumber() + ": " + outcome.error().getMessage());
+        return 1;
+    }
+
+    private static Future<Outcome> take(CompletionService<Outcome> completed) throws IOException {
+        try {
+            return completed.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a result");
+        }
+    }
+
+    private static Outcome await(Future<Outcome> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a result");
+        } catch (ExecutionException e) {
+            // apply() catches Exceptions, so only Errors get here
+            throw (Error) e.getCause();
+        }
+    }
+
+    private static BufferedReader buffered(Reader in) {
+        return in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in, BUFFER_SIZE);
+    }
+
+    private record Outcome(long lineNumber, Object value, Exception error) {
+    }
+}
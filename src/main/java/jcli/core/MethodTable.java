@@ -0,0 +1,215 @@
+package jcli.core;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Dispatch table of a class's public methods, grouped by name and bucketed by
+ * argument count. Each class is scanned once; later lookups for a name and
+ * arity are a pair of hash lookups returning pre-filtered, pre-ranked
+ * candidates.
+ */
+public final class MethodTable {
+
+    private static final ClassValue<MethodTable> TABLES = new ClassValue<>() {
+        @Override
+        protected MethodTable computeValue(Class<?> type) {
+            return new MethodTable(type);
+        }
+    };
+
+    private final Map<String, Overloads> overloads = new HashMap<>();
+    private final List<Method> supportedMethods = new ArrayList<>();
+
+    private MethodTable(Class<?> targetClass) {
+        for (Method m : targetClass.getMethods()) {
+            Overloads group = overloads.computeIfAbsent(m.getName(), k -> new Overloads());
+            group.all.add(m);
+            if (isSupported(m)) {
+                group.supported.add(new Candidate(m));
+                supportedMethods.add(m);
+            } else {
+                group.unsupportedArities.add(m.getParameterCount());
+            }
+        }
+        supportedMethods.sort(Comparator.comparing(Method::getName));
+    }
+
+    public static MethodTable of(Class<?> targetClass) {
+        return TABLES.get(targetClass);
+    }
+
+    /**
+     * Supported overloads of {@code name} callable with {@code argCount}
+     * arguments, best match first: fixed-arity methods with exactly that many
+     * parameters and varargs methods that accept it, ranked by the number of
+     * {@code Object} parameters.
+     */
+    public List<Candidate> candidates(String name, int argCount) {
+        Overloads group = overloads.get(name);
+        if (group == null) {
+            return List.of();
+        }
+        List<Candidate> ranked = group.byArity.get(argCount);
+        return ranked != null ? ranked : group.byArity.computeIfAbsent(argCount, group::rank);
+    }
+
+    public Optional<Candidate> find(String name, int argCount) {
+        List<Candidate> candidates = candidates(name, argCount);
+        return candidates.isEmpty() ? Optional.empty() : Optional.of(candidates.get(0));
+    }
+
+    /**
+     * Every public method named {@code name}, including unsupported ones.
+     */
+    public List<Method> methods(String name) {
+        Overloads group = overloads.get(name);
+        return group == null ? List.of() : group.all;
+    }
+
+    /**
+     * Why no overload of {@code name} can be called with any of
+     * {@code argCounts} arguments: there is no such method, one with that
+     * many parameters takes a type without a converter, or the overloads
+     * take other counts. Answered from what was recorded when the class was
+     * scanned, without reflecting again.
+     */
+    public String diagnose(String name, int... argCounts) {
+        Overloads group = overloads.get(name);
+        if (group == null) {
+            return "No method found with name '" + name + "'";
+        }
+        for (int argCount : argCounts) {
+            if (group.unsupportedArities.contains(argCount)) {
+                return "Method '" + name + "' exists but has unsupported parameter types.";
+            }
+        }
+        return "Method '" + name + "' exists but requires different arguments (found " + group.all.size()
+                + " overload(s)).";
+    }
+
+    /**
+     * All supported methods, sorted by name.
+     */
+    public List<Method> supportedMethods() {
+        return supportedMethods;
+    }
+
+    // A varargs parameter never disqualifies a method: without a converter
+    // for its component it is simply passed empty (see Candidate#accepts)
+    private static boolean isSupported(Method m) {
+        Class<?>[] types = m.getParameterTypes();
+        int checked = m.isVarArgs() ? types.length - 1 : types.length;
+        for (int i = 0; i < checked; i++) {
+            if (!ReflectionCommand.isTypeSupported(types[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A resolved overload together with the facts callers dispatch on.
+     */
+    public static final class Candidate {
+        private final Method method;
+        private final Class<?>[] parameterTypes;
+        private final boolean isStatic;
+        private final int objectParams;
+        // Varargs whose component has no converter only take no trailing args
+        private final boolean emptyVarArgsOnly;
+        // Created on first call; a racing duplicate is harmless
+        private volatile Invoker invoker;
+        private volatile ConversionPlan plan;
+
+        Candidate(Method method) {
+            this.method = method;
+            this.parameterTypes = method.getParameterTypes();
+            this.isStatic = Modifier.isStatic(method.getModifiers());
+            int count = 0;
+            for (Class<?> type : parameterTypes) {
+                if (type == Object.class)
+                    count++;
+            }
+            this.objectParams = count;
+            this.emptyVarArgsOnly = method.isVarArgs()
+                    && !ReflectionCommand.isTypeSupported(parameterTypes[parameterTypes.length - 1].getComponentType());
+        }
+
+        public Method method() {
+            return method;
+        }
+
+        public Class<?>[] parameterTypes() {
+            return parameterTypes;
+        }
+
+        public boolean isStatic() {
+            return isStatic;
+        }
+
+        public boolean isVarArgs() {
+            return method.isVarArgs();
+        }
+
+        public Invoker invoker() {
+            Invoker result = invoker;
+            if (result == null) {
+                result = Invokers.create(method);
+                invoker = result;
+            }
+            return result;
+        }
+
+        /**
+         * Converters for this overload's parameters, built on first call.
+         */
+        public ConversionPlan plan() {
+            ConversionPlan result = plan;
+            if (result == null) {
+                result = new ConversionPlan(parameterTypes, method.isVarArgs());
+                plan = result;
+            }
+            return result;
+        }
+
+        boolean accepts(int argCount) {
+            if (method.isVarArgs()) {
+                // For varargs, we need at least (paramCount - 1) args
+                // e.g. func(String, int...) takes 1 or more args.
+                return emptyVarArgsOnly ? argCount == parameterTypes.length - 1
+                        : argCount >= parameterTypes.length - 1;
+            }
+            return parameterTypes.length == argCount;
+        }
+    }
+
+    private static final class Overloads {
+        final List<Method> all = new ArrayList<>();
+        // Parameter counts of the overloads that are not supported
+        final Set<Integer> unsupportedArities = new HashSet<>();
+        // In getMethods() order, so ranking ties resolve as they always have
+        final List<Candidate> supported = new ArrayList<>();
+        final Map<Integer, List<Candidate>> byArity = new ConcurrentHashMap<>();
+
+        List<Candidate> rank(int argCount) {
+            List<Candidate> ranked = new ArrayList<>();
+            for (Candidate candidate : supported) {
+                if (candidate.accepts(argCount)) {
+                    ranked.add(candidate);
+                }
+            }
+            ranked.sort(Comparator.comparingInt(c -> c.objectParams));
+            return List.copyOf(ranked);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package jcli.core;
+
+import java.util.List;
+
+/**
+ * Picks the overload to call for a concrete argument list. Every candidate
+ * of the right arity is scored in one pass with the non-throwing checks in
+ * {@link Fits}, so an overload whose arguments would not convert is never
+ * tried. The best fit wins: fixed-arity overloads before varargs ones, as in
+ * Java, then the highest score, then the {@link MethodTable} ranking. When
+ * nothing fits, the diagnosis comes from the same scores.
+ */
+final class OverloadResolver {
+
+    // Longer arguments (e.g. @file contents) are cut short in messages
+    private static final int QUOTE_LENGTH = 40;
+
+    private OverloadResolver() {
+    }
+
+    /**
+     * @param candidates overloads of {@code method} that accept
+     *                   {@code args.length} arguments, best ranked first
+     * @throws IllegalArgumentException if no candidate fits, saying which
+     *                                  argument each one rejects
+     */
+    static MethodTable.Candidate resolve(String method, List<MethodTable.Candidate> candidates, CharSequence[] args) {
+        MethodTable.Candidate best = null;
+        boolean bestFixed = false;
+        int bestScore = -1;
+        int[] scores = new int[candidates.size()];
+        for (int i = 0; i < scores.length; i++) {
+            MethodTable.Candidate candidate = candidates.get(i);
+            int score = candidate.plan().score(args);
+            scores[i] = score;
+            if (score < 0) {
+                continue;
+            }
+            boolean fixed = !candidate.isVarArgs();
+            if (best == null || fixed && !bestFixed || fixed == bestFixed && score > bestScore) {
+                best = candidate;
+                bestFixed = fixed;
+                bestScore = score;
+                if (fixed && score == Fits.EXACT * args.length) {
+                    // Nothing later can do better
+                    break;
+                }
+            }
+        }
+        if (best == null) {
+            throw new IllegalArgumentException(diagnose(method, candidates, scores, args));
+        }
+        return best;
+    }
+
+    private static String diagnose(String method, List<MethodTable.Candidate> candidates, int[] scores,
+            CharSequence[] args) {
+        StringBuilder message = new StringBuilder("No overload of '").append(method)
+                .append("' accepts these arguments:");
+        for (int i = 0; i < scores.length; i++) {
+            Class<?>[] types = candidates.get(i).parameterTypes();
+            int argument = -scores[i] - 1;
+            int parameter = Math.min(argument, types.length - 1);
+            Class<?> type = candidates.get(i).isVarArgs() && argument >= types.length - 1
+                    ? types[parameter].getComponentType()
+                    : types[parameter];
+            message.append("\n  ").append(method).append('(');
+            for (int p = 0; p < types.length; p++) {
+                message.append(p == 0 ? "" : ", ").append(types[p].getSimpleName());
+            }
+            message.append("): argument ").append(argument + 1).append(' ').append(quote(args[argument]))
+                    .append(" is not a valid ").append(type.getSimpleName());
+        }
+        return message.toString();
+    }
+
+    private static String quote(CharSequence arg) {
+        if (arg == null) {
+            return "null";
+        }
+        return arg.length() <= QUOTE_LENGTH ? "'" + arg + "'" : "'" + arg.subSequence(0, QUOTE_LENGTH) + "...'";
+    }
+}
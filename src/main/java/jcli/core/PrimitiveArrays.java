@@ -0,0 +1,245 @@
+package jcli.core;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Parses {@code int[]}, {@code long[]} and {@code double[]} arguments straight
+ * from their text into the primitive array, without boxing or per-element
+ * Strings. Accepts the same forms as the generic path: a JSON array
+ * ({@code [1, 2, 3]}, elements optionally quoted) or a bare comma-separated
+ * list ({@code 1,2,3}).
+ *
+ * <p>
+ * Inputs of at least {@link #PARALLEL_THRESHOLD} chars (e.g. a large
+ * {@code @file}) are split into chunks at element boundaries and parsed on
+ * the common pool: one pass counts each chunk's elements so every chunk
+ * knows its offset, a second pass parses the chunks into the shared array.
+ */
+final class PrimitiveArrays {
+
+    static final int PARALLEL_THRESHOLD = 1 << 18;
+
+    // Powers of ten exactly representable as doubles
+    private static final double[] POWERS_OF_TEN = new double[23];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private PrimitiveArrays() {
+    }
+
+    static boolean supports(Class<?> arrayType) {
+        return arrayType == int[].class || arrayType == long[].class || arrayType == double[].class;
+    }
+
+    /**
+     * @throws NumberFormatException if an element is not a valid number of the
+     *                               component type
+     */
+    static Object parse(Class<?> arrayType, CharSequence text) {
+        // Forces lazy views (TextView) to settle on this thread before workers read them
+        int end = text.length();
+        int start = 0;
+        while (start < end && text.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && text.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        if (end - start >= 2 && text.charAt(start) == '[' && text.charAt(end - 1) == ']') {
+            start++;
+            end--;
+            if (isBlank(text, start, end)) {
+                return java.lang.reflect.Array.newInstance(arrayType.getComponentType(), 0);
+            }
+        }
+
+        int[] bounds = chunkBounds(text, start, end);
+        int chunks = bounds.length - 1;
+        int[] offsets = new int[chunks + 1];
+        if (chunks == 1) {
+            offsets[1] = countElements(text, start, end);
+        } else {
+            int[] counts = new int[chunks];
+            IntStream.range(0, chunks).parallel()
+                    .forEach(c -> counts[c] = countElements(text, bounds[c], chunkEnd(bounds, c)));
+            for (int c = 0; c < chunks; c++) {
+                offsets[c + 1] = offsets[c] + counts[c];
+            }
+        }
+
+        Object array = java.lang.reflect.Array.newInstance(arrayType.getComponentType(), offsets[chunks]);
+        if (chunks == 1) {
+            parseChunk(text, start, end, array, 0);
+        } else {
+            IntStream.range(0, chunks).parallel()
+                    .forEach(c -> parseChunk(text, bounds[c], chunkEnd(bounds, c), array, offsets[c]));
+        }
+        return array;
+    }
+
+    // Chunk c starts at bounds[c] and ends at chunkEnd(bounds, c); inner bounds
+    // sit just after the comma that separates two chunks
+    private static int[] chunkBounds(CharSequence text, int start, int end) {
+        int length = end - start;
+        int chunks = length < PARALLEL_THRESHOLD ? 1
+                : Math.min(ForkJoinPool.getCommonPoolParallelism() * 4, length / (PARALLEL_THRESHOLD / 4));
+        if (chunks <= 1) {
+            return new int[] { start, end };
+        }
+
+        int[] bounds = new int[chunks + 1];
+        bounds[0] = start;
+        int count = 1;
+        for (int c = 1; c < chunks; c++) {
+            int at = Math.max(start + (int) ((long) length * c / chunks), bounds[count - 1]);
+            while (at < end && text.charAt(at) != ',') {
+                at++;
+            }
+            if (at < end) {
+                bounds[count++] = at + 1;
+            }
+        }
+        bounds[count++] = end;
+        return count == bounds.length ? bounds : java.util.Arrays.copyOf(bounds, count);
+    }
+
+    private static int chunkEnd(int[] bounds, int c) {
+        // Excludes the separating comma, except at the very end of the input
+        return c + 2 < bounds.length ? bounds[c + 1] - 1 : bounds[c + 1];
+    }
+
+    private static int countElements(CharSequence text, int from, int to) {
+        int count = 1;
+        for (int i = from; i < to; i++) {
+            if (text.charAt(i) == ',') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static void parseChunk(CharSequence text, int from, int to, Object array, int index) {
+        int tokenStart = from;
+        for (int i = from; i <= to; i++) {
+            if (i == to || text.charAt(i) == ',') {
+                parseElement(text, tokenStart, i, array, index++);
+                tokenStart = i + 1;
+            }
+        }
+    }
+
+    private static void parseElement(CharSequence text, int from, int to, Object array, int index) {
+        while (from < to && text.charAt(from) <= ' ') {
+            from++;
+        }
+        while (to > from && text.charAt(to - 1) <= ' ') {
+            to--;
+        }
+        if (to - from >= 2 && text.charAt(from) == '"' && text.charAt(to - 1) == '"') {
+            from++;
+            to--;
+        }
+
+        if (array instanceof int[]) {
+            long value = parseLong(text, from, to);
+            if (value != (int) value) {
+                throw invalid(text, from, to);
+            }
+            ((int[]) array)[index] = (int) value;
+        } else if (array instanceof long[]) {
+            ((long[]) array)[index] = parseLong(text, from, to);
+        } else {
+            ((double[]) array)[index] = parseDouble(text, from, to);
+        }
+    }
+
+    private static long parseLong(CharSequence text, int from, int to) {
+        int i = from;
+        boolean negative = false;
+        if (i < to && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+            negative = text.charAt(i) == '-';
+            i++;
+        }
+        if (i == to) {
+            throw invalid(text, from, to);
+        }
+
+        // Accumulate negatively so Long.MIN_VALUE parses without overflow
+        long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long multiplyLimit = limit / 10;
+        long result = 0;
+        for (; i < to; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9 || result < multiplyLimit) {
+                throw invalid(text, from, to);
+            }
+            result *= 10;
+            if (result < limit + digit) {
+                throw invalid(text, from, to);
+            }
+            result -= digit;
+        }
+        return negative ? result : -result;
+    }
+
+    // Plain decimals with at most 15 significant digits are exact as long /
+    // power of ten (both exactly representable, one correctly rounded
+    // division); anything else goes through Double.parseDouble.
+    private static double parseDouble(CharSequence text, int from, int to) {
+        int i = from;
+        boolean negative = false;
+        if (i < to && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+            negative = text.charAt(i) == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = -1;
+        for (; i < to; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                mantissa = mantissa * 10 + (c - '0');
+                if (++digits > 15) {
+                    break;
+                }
+                if (fractionDigits >= 0) {
+                    fractionDigits++;
+                }
+            } else if (c == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+            } else {
+                break;
+            }
+        }
+        if (i == to && digits > 0 && fractionDigits != 0) {
+            double value = fractionDigits > 0 ? mantissa / POWERS_OF_TEN[fractionDigits] : mantissa;
+            return negative ? -value : value;
+        }
+
+        try {
+            return Double.parseDouble(text.subSequence(from, to).toString());
+        } catch (NumberFormatException e) {
+            throw invalid(text, from, to);
+        }
+    }
+
+    private static boolean isBlank(CharSequence text, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (text.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static NumberFormatException invalid(CharSequence text, int from, int to) {
+        return new NumberFormatException("For input string: \"" + text.subSequence(from, to) + "\"");
+    }
+}
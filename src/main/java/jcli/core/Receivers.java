@@ -0,0 +1,201 @@
+package jcli.core;
+
+import java.lang.reflect.Constructor;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Per-class receiver construction, resolved once per class. The public
+ * no-arg, {@code String}, {@code long} and {@code int} constructors are looked
+ * up when the class is first used, so building a receiver no longer probes
+ * for constructors by catching {@link NoSuchMethodException}s, and numeric
+ * constructors are skipped without an exception when the text is not an
+ * integer in their range.
+ *
+ * <p>
+ * Receivers of known immutable types ({@code BigInteger}, {@code LocalDate},
+ * {@code UUID}, enums, ...) are also kept in a bounded cache keyed by their
+ * text, so a batch that repeats the same receiver builds it once. Lookups take
+ * no lock, and the least recently used entries are evicted first. The size is set with
+ * {@code -Djcli.receiverCache=<entries>}; {@code 0} disables it.
+ */
+final class Receivers {
+
+    static final int CACHE_SIZE = Integer.getInteger("jcli.receiverCache", 1024);
+
+    // Value types whose instances cannot change once built, so sharing one
+    // between invocations is unobservable
+    private static final Set<String> IMMUTABLE = Set.of(
+            "java.lang.String", "java.lang.Integer", "java.lang.Long", "java.lang.Short", "java.lang.Byte",
+            "java.lang.Double", "java.lang.Float", "java.lang.Boolean", "java.lang.Character",
+            "java.math.BigInteger", "java.math.BigDecimal", "java.util.UUID", "java.util.Locale",
+            "java.net.URI", "java.time.LocalDate", "java.time.LocalTime", "java.time.LocalDateTime",
+            "java.time.Instant", "java.time.Duration", "java.time.Period", "java.time.ZonedDateTime",
+            "java.time.OffsetDateTime", "java.time.OffsetTime", "java.time.Year", "java.time.YearMonth",
+            "java.time.MonthDay", "java.time.ZoneOffset", "java.time.ZoneId");
+
+    private static final ClassValue<Receivers> RECEIVERS = new ClassValue<>() {
+        @Override
+        protected Receivers computeValue(Class<?> type) {
+            return new Receivers(type);
+        }
+    };
+
+    private final Class<?> type;
+    private final Constructor<?> noArg;
+    private final Constructor<?> fromString;
+    private final Constructor<?> fromLong;
+    private final Constructor<?> fromInt;
+    // By factory method name ("" for constructors); null if not cacheable
+    private final Map<String, Bounded> caches;
+
+    private Receivers(Class<?> type) {
+        this.type = type;
+        this.noArg = constructor(type);
+        this.fromString = constructor(type, String.class);
+        this.fromLong = constructor(type, long.class);
+        this.fromInt = constructor(type, int.class);
+        this.caches = CACHE_SIZE > 0 && (type.isEnum() || IMMUTABLE.contains(type.getName()))
+                ? new ConcurrentHashMap<>()
+                : null;
+    }
+
+    static Receivers of(Class<?> type) {
+        return RECEIVERS.get(type);
+    }
+
+    boolean hasNoArgConstructor() {
+        return noArg != null;
+    }
+
+    Object newDefault() throws ReflectiveOperationException {
+        if (noArg == null) {
+            throw new NoSuchMethodException(type.getName() + ".<init>()");
+        }
+        return noArg.newInstance();
+    }
+
+    /**
+     * Tries the {@code String}, {@code long} and {@code int} constructors in
+     * that order, as far as {@code constructors} (from the command index)
+     * allows; {@code null} allows all of them.
+     */
+    Object create(String argument, Set<InstanceConstructor> constructors) {
+        Exception failure = null;
+        if (fromString != null && allows(constructors, InstanceConstructor.STRING)) {
+            try {
+                return fromString.newInstance(argument);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                failure = e;
+            }
+        }
+
+        // Range-checked first, so parsing cannot throw
+        if (fromLong != null && allows(constructors, InstanceConstructor.LONG)
+                && Fits.fitsRange(argument, Long.MIN_VALUE, Long.MAX_VALUE)) {
+            try {
+                return fromLong.newInstance(Long.parseLong(argument));
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                failure = e;
+            }
+        }
+        if (fromInt != null && allows(constructors, InstanceConstructor.INT)
+                && Fits.fitsRange(argument, Integer.MIN_VALUE, Integer.MAX_VALUE)) {
+            try {
+                return fromInt.newInstance(Integer.parseInt(argument));
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                failure = e;
+            }
+        }
+
+        throw new IllegalArgumentException(
+                "Could not instantiate " + type.getName() + " with argument: " + argument, failure);
+    }
+
+    /**
+     * Returns the receiver built from {@code text}, reusing a previous one when
+     * the type is immutable. {@code factory} names how receivers are built
+     * ({@code null} for constructors), since two commands over the same class
+     * may build them differently.
+     */
+    Object cached(String factory, String text, Function<String, Object> build) {
+        if (caches == null) {
+            return build.apply(text);
+        }
+        Bounded cache = caches.computeIfAbsent(factory == null ? "" : factory, k -> new Bounded());
+        Object receiver = cache.get(text);
+        if (receiver == null) {
+            // A racing duplicate is harmless for immutable values
+            receiver = build.apply(text);
+            cache.put(text, receiver);
+        }
+        return receiver;
+    }
+
+    private static boolean allows(Set<InstanceConstructor> constructors, InstanceConstructor kind) {
+        return constructors == null || constructors.contains(kind);
+    }
+
+    private static Constructor<?> constructor(Class<?> type, Class<?>... parameterTypes) {
+        try {
+            return type.getConstructor(parameterTypes);
+        } catch (NoSuchMethodException | SecurityException e) {
+            return null;
+        }
+    }
+
+    // Least recently used eviction without locking reads: a hit only stamps
+    // its entry with the next tick of a counter, and the entries with the
+    // oldest stamps are dropped when the cache overflows
+    private static final class Bounded {
+
+        private final Map<String, Entry> values = new ConcurrentHashMap<>();
+        private final AtomicLong clock = new AtomicLong();
+
+        Object get(String text) {
+            Entry entry = values.get(text);
+            if (entry == null) {
+                return null;
+            }
+            entry.lastUsed = clock.incrementAndGet();
+            return entry.receiver;
+        }
+
+        void put(String text, Object receiver) {
+            if (receiver == null || values.putIfAbsent(text, new Entry(receiver, clock.incrementAndGet())) != null) {
+                return;
+            }
+            if (values.size() > CACHE_SIZE) {
+                evict();
+            }
+        }
+
+        // Drops an eighth of the entries at a time, so the scan is paid once
+        // per that many insertions rather than on every one
+        private synchronized void evict() {
+            long[] stamps = values.values().stream().mapToLong(e -> e.lastUsed).toArray();
+            int excess = stamps.length - (CACHE_SIZE - CACHE_SIZE / 8);
+            if (stamps.length <= CACHE_SIZE || excess <= 0) {
+                return;
+            }
+            Arrays.sort(stamps);
+            long cutoff = stamps[excess - 1];
+            values.values().removeIf(e -> e.lastUsed <= cutoff);
+        }
+    }
+
+    private static final class Entry {
+
+        final Object receiver;
+        volatile long lastUsed;
+
+        Entry(Object receiver, long lastUsed) {
+            this.receiver = receiver;
+            this.lastUsed = lastUsed;
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package jcli.core;
+
+import jcli.config.CommandConfig;
+import jcli.io.OutputFormat;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * On-disk cache of the output of pure method calls, enabled per call with
+ * {@code --cache} or always with {@code -Djcli.cache=true}. Only methods that
+ * {@code commands.yaml} allowlists under {@code pure} are cached.
+ *
+ * <p>
+ * Entries are keyed by the command's class, strategy and factory, the method
+ * name, the literal argument texts, {@code --skip}/{@code --limit}, the output
+ * format and charset, the Java runtime version and the class file or jar the
+ * class comes from, with its modification time, so rebuilt or upgraded code
+ * starts afresh. The key is computed before the target class is loaded, so a
+ * hit costs one file read. Arguments stand in for
+ * the converted values and the resolved signature, which both follow from
+ * them. Calls that read stdin or {@code @file}s, or that use {@code then}
+ * chains, are not cached.
+ *
+ * <p>
+ * Entries live in {@code -Djcli.cache.dir}, else
+ * {@code $XDG_CACHE_HOME/jcli/results}, else {@code ~/.cache/jcli/results}.
+ * Once they exceed {@code -Djcli.cache.maxBytes} (64 MB by default) the least
+ * recently used are deleted. A cache that cannot be read or written is
+ * ignored; the call then simply runs.
+ */
+public final class ResultCache {
+
+    public static final String PROPERTY = "jcli.cache";
+    static final String DIR_PROPERTY = "jcli.cache.dir";
+    static final String MAX_BYTES_PROPERTY = "jcli.cache.maxBytes";
+
+    private static final long DEFAULT_MAX_BYTES = 64L << 20;
+    // Bump when the key or entry format changes
+    private static final String FORMAT = "3";
+    private static final String SUFFIX = ".out";
+
+    private final Path directory;
+    private final long maxBytes;
+
+    ResultCache(Path directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+    }
+
+    public static ResultCache open() {
+        return new ResultCache(defaultDirectory(), Long.getLong(MAX_BYTES_PROPERTY, DEFAULT_MAX_BYTES));
+    }
+
+    private static Path defaultDirectory() {
+        String configured = System.getProperty(DIR_PROPERTY);
+        if (configured != null) {
+            return Path.of(configured);
+        }
+        String xdg = System.getenv("XDG_CACHE_HOME");
+        Path base = xdg != null && !xdg.isEmpty() ? Path.of(xdg) : Path.of(System.getProperty("user.home"), ".cache");
+        return base.resolve("jcli").resolve("results");
+    }
+
+    /**
+     * Returns the cache key for calling {@code method} with {@code args}, or
+     * {@code null} if the call cannot be cached.
+     */
+    public static String key(CommandConfig config, String method, String[] args, long skip, long limit,
+            OutputFormat output, Charset charset) {
+        if (!config.isPure(method)) {
+            return null;
+        }
+        for (String arg : args) {
+            if (arg == null || arg.equals("-") || arg.startsWith("@") || arg.equals(Chain.SEPARATOR)) {
+                return null;
+            }
+        }
+
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            return null;
+        }
+        for (String part : new String[] { FORMAT, Runtime.version().toString(), config.className(),
+                codeSource(config.className()),
+                String.valueOf(config.strategy()), String.valueOf(config.factory()), method,
+                Long.toString(skip), Long.toString(limit), output.toString(), charset.name() }) {
+            update(digest, part);
+        }
+        for (String arg : args) {
+            update(digest, arg);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    // The class file's location and modification time, found as a resource so
+    // the class is not loaded; for a class in a jar, the jar's. JDK classes
+    // (jrt:) are covered by the runtime version.
+    private static String codeSource(String className) {
+        URL url = ClassLoader.getSystemResource(className.replace('.', '/') + ".class");
+        if (url == null) {
+            return "";
+        }
+        try {
+            Path file;
+            if (url.getProtocol().equals("file")) {
+                file = Path.of(url.toURI());
+            } else if (url.getProtocol().equals("jar") && url.getPath().startsWith("file:")) {
+                String path = url.getPath();
+                file = Path.of(URI.create(path.substring(0, path.indexOf("!/"))));
+            } else {
+                return url.toString();
+            }
+            return url + "@" + Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException | URISyntaxException | RuntimeException e) {
+            return url.toString();
+        }
+    }
+
+    // Length-prefixed, so adjacent parts cannot run into each other
+    private static void update(MessageDigest digest, String part) {
+        byte[] bytes = part.getBytes(StandardCharsets.UTF_8);
+        digest.update((byte) (bytes.length >>> 24));
+        digest.update((byte) (bytes.length >>> 16));
+        digest.update((byte) (bytes.length >>> 8));
+        digest.update((byte) bytes.length);
+        digest.update(bytes);
+    }
+
+    /**
+     * Returns the stored output for {@code key}, or {@code null} on a miss.
+     */
+    public byte[] find(String key) {
+        Path entry = directory.resolve(key + SUFFIX);
+        try {
+            byte[] output = Files.readAllBytes(entry);
+            // Marks the entry as recently used for eviction
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+            return output;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | RuntimeException e) {
+            debug("read", e);
+            return null;
+        }
+    }
+
+    /**
+     * Stores {@code output} under {@code key}, then evicts the least recently
+     * used entries if the cache has outgrown its limit.
+     */
+    public void store(String key, byte[] output) {
+        if (output.length > maxBytes) {
+            return;
+        }
+        try {
+            Files.createDirectories(directory);
+            // Written aside and moved in, so concurrent readers never see half an entry
+            Path temp = Files.createTempFile(directory, key, ".tmp");
+            try {
+                Files.write(temp, output);
+                Files.move(temp, directory.resolve(key + SUFFIX), StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+            evict();
+        } catch (IOException | RuntimeException e) {
+            debug("write", e);
+        }
+    }
+
+    private void evict() throws IOException {
+        record Entry(Path path, long size, long lastUsed) {
+        }
+        List<Entry> entries = new ArrayList<>();
+        long total = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path file : files) {
+                BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                entries.add(new Entry(file, attributes.size(), attributes.lastModifiedTime().toMillis()));
+                total += attributes.size();
+            }
+        }
+        if (total <= maxBytes) {
+            return;
+        }
+        entries.sort(Comparator.comparingLong(Entry::lastUsed));
+        for (Entry entry : entries) {
+            if (total <= maxBytes) {
+                break;
+            }
+            Files.deleteIfExists(entry.path());
+            total -= entry.size();
+        }
+    }
+
+    private static void debug(String action, Exception e) {
+        if (System.getProperty("jcli.debug") != null) {
+            StdIo.err().println("Warning: could not " + action + " the result cache: " + e);
+        }
+    }
+}
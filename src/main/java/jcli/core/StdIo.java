@@ -0,0 +1,59 @@
+package jcli.core;
+
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.util.concurrent.Callable;
+
+/**
+ * The standard streams a command reads and writes. Outside of {@link #with}
+ * these are {@code System.in/out/err} (looked up on every call, so
+ * {@code System.setOut} keeps working); inside it they are the streams bound
+ * for the current thread. The daemon uses this to give each request its own
+ * stdin, stdout and stderr.
+ */
+public final class StdIo {
+
+    private static final ThreadLocal<StdIo> CURRENT = new ThreadLocal<>();
+
+    private final InputStream in;
+    private final PrintStream out;
+    private final PrintStream err;
+
+    private StdIo(InputStream in, PrintStream out, PrintStream err) {
+        this.in = in;
+        this.out = out;
+        this.err = err;
+    }
+
+    public static InputStream in() {
+        StdIo io = CURRENT.get();
+        return io != null ? io.in : System.in;
+    }
+
+    public static PrintStream out() {
+        StdIo io = CURRENT.get();
+        return io != null ? io.out : System.out;
+    }
+
+    public static PrintStream err() {
+        StdIo io = CURRENT.get();
+        return io != null ? io.err : System.err;
+    }
+
+    /**
+     * Runs {@code task} on the current thread with the given streams bound.
+     */
+    public static <T> T with(InputStream in, PrintStream out, PrintStream err, Callable<T> task) throws Exception {
+        StdIo previous = CURRENT.get();
+        CURRENT.set(new StdIo(in, out, err));
+        try {
+            return task.call();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+}
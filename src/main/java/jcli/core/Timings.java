@@ -0,0 +1,139 @@
+package jcli.core;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-phase wall-clock breakdown of a single {@code jcli} run, enabled with
+ * {@code --timings[=json]} or {@code -Djcli.timings[=json]}.
+ *
+ * <p>
+ * Each {@link #mark} attributes the time since the previous mark to the
+ * named phase; a phase marked repeatedly (e.g. invocation under
+ * {@code --each}) accumulates its time and counts the calls. Only
+ * {@link System#nanoTime()} is used, so the report means the same in a
+ * native image as on the JVM. Time before {@code main} (JVM or image
+ * startup) is not included.
+ *
+ * <p>
+ * Marks only count on the thread that called {@link #start}; elsewhere (the
+ * daemon, parallel workers) they are a no-op, as they are when disabled.
+ */
+public final class Timings {
+
+    public static final String PROPERTY = "jcli.timings";
+    public static final String OPTION = "--timings";
+
+    private static volatile Thread owner;
+    private static long origin;
+    private static long last;
+    private static boolean json;
+    private static final Map<String, long[]> PHASES = new LinkedHashMap<>();
+
+    private Timings() {
+    }
+
+    /**
+     * Starts timing if {@code --timings} appears among the root options of
+     * {@code args} or {@link #PROPERTY} is set. The format may follow as
+     * {@code --timings=json} or {@code --timings json}; a bare
+     * {@code --timings} before the {@code json} command therefore needs an
+     * explicit format ({@code --timings text json ...}).
+     *
+     * @return {@code args} without the {@code --timings} option and its format
+     */
+    public static String[] start(String[] args) {
+        long now = System.nanoTime();
+        String format = System.getProperty(PROPERTY);
+        List<String> remaining = new ArrayList<>(args.length);
+        boolean rootOptions = true;
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (rootOptions && arg.equals(OPTION)) {
+                // Takes a following format as picocli would, so
+                // "--timings json" is the format, not the json command
+                boolean formatFollows = i + 1 < args.length && isFormat(args[i + 1]);
+                format = formatFollows ? args[++i] : "text";
+                continue;
+            }
+            if (rootOptions && arg.startsWith(OPTION + "=")) {
+                format = arg.substring(OPTION.length() + 1);
+                continue;
+            }
+            // Options after the command name belong to the command
+            rootOptions &= arg.startsWith("-");
+            remaining.add(arg);
+        }
+        if (format == null) {
+            return args;
+        }
+
+        json = format.equalsIgnoreCase("json");
+        origin = now;
+        last = now;
+        owner = Thread.currentThread();
+        return remaining.toArray(new String[0]);
+    }
+
+    private static boolean isFormat(String arg) {
+        return arg.equalsIgnoreCase("text") || arg.equalsIgnoreCase("json");
+    }
+
+    public static boolean isEnabled() {
+        return owner != null;
+    }
+
+    /**
+     * Ends the current phase, attributing the time since the previous mark to
+     * {@code phase}.
+     */
+    public static void mark(String phase) {
+        if (owner != Thread.currentThread()) {
+            return;
+        }
+        long now = System.nanoTime();
+        long[] totals = PHASES.computeIfAbsent(phase, k -> new long[2]);
+        totals[0] += now - last;
+        totals[1]++;
+        last = now;
+    }
+
+    /**
+     * Writes the breakdown to {@code out} and stops timing. Does nothing when
+     * timing is disabled.
+     */
+    public static void report(PrintStream out) {
+        if (owner != Thread.currentThread()) {
+            return;
+        }
+        long total = System.nanoTime() - origin;
+        owner = null;
+
+        StringBuilder sb = new StringBuilder();
+        if (json) {
+            sb.append("{\"totalNanos\":").append(total).append(",\"phases\":[");
+            boolean first = true;
+            for (Map.Entry<String, long[]> phase : PHASES.entrySet()) {
+                sb.append(first ? "" : ",")
+                        .append("{\"name\":\"").append(phase.getKey())
+                        .append("\",\"nanos\":").append(phase.getValue()[0])
+                        .append(",\"count\":").append(phase.getValue()[1]).append('}');
+                first = false;
+            }
+            sb.append("]}");
+        } else {
+            sb.append("jcli timings (ms):");
+            for (Map.Entry<String, long[]> phase : PHASES.entrySet()) {
+                sb.append(String.format("%n  %-22s %10.3f", phase.getKey(), phase.getValue()[0] / 1_000_000.0));
+                if (phase.getValue()[1] > 1) {
+                    sb.append("  (").append(phase.getValue()[1]).append("x)");
+                }
+            }
+            sb.append(String.format("%n  %-22s %10.3f", "total", total / 1_000_000.0));
+        }
+        out.println(sb);
+    }
+}
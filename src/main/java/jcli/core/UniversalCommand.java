@@ -1,20 +1,22 @@
 package jcli.core;
 
 import jcli.config.CommandConfig;
+import jcli.io.OutputFormat;
+import jcli.io.ResultWriter;
 import picocli.CommandLine;
 import picocli.CommandLine.Model.CommandSpec;
 import picocli.CommandLine.Spec;
 
-import java.lang.reflect.Method;
-import java.lang.reflect.Modifier;
-import java.util.Optional;
-
 @CommandLine.Command
 public class UniversalCommand implements Runnable {
 
     private final CommandConfig config;
     // Loaded lazily to avoid static initialization side-effects at startup
     private Class<?> targetClass;
+    // By method and argument count; kept while this instance is reused (e.g.
+    // across the rows of a --script)
+    private final java.util.Map<String, ExecutionPlan> plans = new java.util.HashMap<>();
+    private boolean failed;
 
     @Spec
     CommandSpec spec;
@@ -25,10 +27,35 @@ public class UniversalCommand implements Runnable {
     @CommandLine.Option(names = { "-h", "--help" }, usageHelp = true, description = "Show this help message and exit.")
     boolean helpRequested;
 
+    @CommandLine.Option(names = "--each", description = "Run the method once per line of stdin. Each line takes the place of the '-' argument (or the position given by --each-index).")
+    boolean each;
+
+    @CommandLine.Option(names = "--each-index", paramLabel = "<index>", description = "Argument position each line is bound to with --each (default: the '-' argument, else after the last argument).")
+    Integer eachIndex;
+
+    @CommandLine.Option(names = "--parallel", paramLabel = "<threads>", description = "With --each, process up to <threads> lines at a time. Output keeps input order unless --unordered is given.")
+    Integer parallel;
+
+    @CommandLine.Option(names = "--unordered", description = "With --parallel, write each result as soon as it is ready instead of in input order.")
+    boolean unordered;
+
+    @CommandLine.Option(names = "--limit", paramLabel = "<n>", description = "Write at most <n> elements of a Stream, Iterator, Spliterator or Enumeration result.")
+    long limit = -1;
+
+    @CommandLine.Option(names = "--skip", paramLabel = "<n>", description = "Drop the first <n> elements of a Stream, Iterator, Spliterator or Enumeration result.")
+    long skip;
+
+    @CommandLine.Option(names = "--output", paramLabel = "<format>", description = "How results are written: text (the default), json, jsonl (one JSON value per element), nul (NUL-terminated records, for xargs -0) or raw (byte[] and text as is, no separators).")
+    String output = "text";
+
+    @CommandLine.Option(names = "--cache", description = "Reuse the output of an earlier identical call if the method is marked pure in commands.yaml, and store it otherwise. Same as -D"
+            + ResultCache.PROPERTY + "=true.")
+    boolean cache;
+
     @CommandLine.Parameters(index = "0", description = "The method name to execute.", arity = "0..1")
     String method;
 
-    @CommandLine.Parameters(index = "1..*", description = "Arguments for the method.")
+    @CommandLine.Parameters(index = "1..*", description = "Arguments for the method. Append 'then <method> [args...]' to call a method on the result.")
     String[] args = new String[0];
 
     public UniversalCommand(CommandConfig config) {
@@ -46,124 +73,176 @@ public class UniversalCommand implements Runnable {
         }
     }
 
+    /**
+     * Whether the last {@link #run} reported an error (for {@code --each},
+     * whether any line failed). Errors do not change the exit code of a
+     * single call; {@code --script} uses this to report failing rows.
+     */
+    public boolean failed() {
+        return failed;
+    }
+
     @Override
     public void run() {
+        Timings.mark("argument parsing");
+        failed = false;
         try {
+            // Checked before the target class is even loaded
+            String cacheKey = cacheKey();
+            if (cacheKey != null && replay(cacheKey)) {
+                Timings.mark("result cache");
+                return;
+            }
+
             loadTargetClass();
+            Timings.mark("class load");
 
             if (listMethods) {
-                System.out.println(ReflectionCommand.listMethods(targetClass));
+                StdIo.out().println(ReflectionCommand.listMethods(targetClass));
                 return;
             }
 
             if (method == null) {
-                System.err.println("Error: Missing required argument '<method>'");
-                CommandLine.usage(this, System.out);
+                StdIo.err().println("Error: Missing required argument '<method>'");
+                CommandLine.usage(this, StdIo.out());
                 return;
             }
 
+            Chain chain = Chain.parse(args);
+            args = chain.head();
+
+            if (each) {
+                executeEach(chain);
+                return;
+            }
+            if (parallel != null) {
+                throw new IllegalArgumentException("--parallel requires --each");
+            }
+
             // Resolve arguments (file/stdin expansion)
+            CharSequence[] inputs = new CharSequence[args.length];
             for (int i = 0; i < args.length; i++) {
-                args[i] = ReflectionCommand.resolveArgument(args[i]);
+                inputs[i] = ReflectionCommand.resolveInput(args[i]);
             }
-            executeStrategy();
+            chain.resolveArguments();
+            Timings.mark("argument resolution");
+            executeStrategy(chain, inputs, cacheKey);
 
         } catch (Exception e) {
-            System.err.println("Error executing method '" + method + "': " + e.getMessage());
+            failed = true;
+            StdIo.err().println("Error executing method '" + method + "': " + e.getMessage());
             if (System.getProperty("jcli.debug") != null) {
-                e.printStackTrace();
+                e.printStackTrace(StdIo.err());
             }
         }
     }
 
-    private void executeStrategy() throws Exception {
-        switch (config.strategy()) {
-            case STATIC:
-                executeStatic();
-                break;
-            case INSTANCE:
-                executeInstance();
-                break;
-            case HYBRID:
-                executeHybrid();
-                break;
+    private String cacheKey() {
+        if (!(cache || Boolean.getBoolean(ResultCache.PROPERTY)) || method == null || listMethods || each
+                || parallel != null) {
+            return null;
         }
+        return ResultCache.key(config, method, args, skip, limit, OutputFormat.parse(output), StdIo.out().charset());
     }
 
-    private void executeStatic() {
-        Object result = ReflectionCommand.invoke(null, targetClass, method, args);
-        System.out.println(result);
-    }
-
-    private void executeInstance() {
-        if (args.length < 1) {
-            throw new IllegalArgumentException("Instance command requires at least one argument (the instance)");
+    private boolean replay(String cacheKey) {
+        byte[] output = ResultCache.open().find(cacheKey);
+        if (output == null) {
+            return false;
         }
-        String instanceText = args[0];
-        String[] realArgs = java.util.Arrays.copyOfRange(args, 1, args.length);
-        Object instance = instanceText;
-        Object result = ReflectionCommand.invoke(instance, targetClass, method, realArgs);
-        System.out.println(result);
+        StdIo.out().write(output, 0, output.length);
+        StdIo.out().flush();
+        return true;
     }
 
-    private void executeHybrid() throws Exception {
-        // 1. Try static match with ALL args
-        Optional<Method> staticMatch = ReflectionCommand.findMethod(targetClass, method, args.length);
-        if (staticMatch.isPresent() && Modifier.isStatic(staticMatch.get().getModifiers())) {
-            Object result = ReflectionCommand.invoke(null, targetClass, method, args);
-            System.out.println(result);
+    private void executeStrategy(Chain chain, CharSequence[] inputs, String cacheKey) throws Exception {
+        ExecutionPlan plan = plan(inputs.length);
+        Timings.mark("method resolution");
+        Object result = plan.execute(inputs);
+        if (!chain.isEmpty()) {
+            result = chain.apply(result);
+            Timings.mark("chained calls");
+        }
+        if (cacheKey == null) {
+            ResultWriter out = writer(StdIo.out());
+            out.write(result);
+            out.flush();
+            Timings.mark("output");
             return;
         }
 
-        // 2. Try Instance Match with Default Constructor
-        // If class has default constructor, we can try using it as the instance
-        // and passing ALL args to the method.
-        boolean hasDefaultConstructor = java.util.Arrays.stream(targetClass.getConstructors())
-                .anyMatch(c -> c.getParameterCount() == 0);
-
-        if (hasDefaultConstructor) {
-            Optional<Method> instanceMatch = ReflectionCommand.findMethod(targetClass, method, args.length);
-            if (instanceMatch.isPresent() && !Modifier.isStatic(instanceMatch.get().getModifiers())) {
-                Object instance = targetClass.getConstructor().newInstance();
-                Object result = ReflectionCommand.invoke(instance, targetClass, method, args);
-                System.out.println(result);
-                return;
-            }
+        // Rendered in memory first, so only complete output is stored
+        java.io.ByteArrayOutputStream bytes = new java.io.ByteArrayOutputStream();
+        ResultWriter out = writer(new java.io.PrintStream(bytes, false, StdIo.out().charset()));
+        out.write(result);
+        out.flush();
+        bytes.writeTo(StdIo.out());
+        StdIo.out().flush();
+        Timings.mark("output");
+        ResultCache.open().store(cacheKey, bytes.toByteArray());
+        Timings.mark("result cache");
+    }
+
+    private ExecutionPlan plan(int argCount) {
+        return plans.computeIfAbsent(method + '/' + argCount,
+                k -> ExecutionPlan.resolve(config, targetClass, method, argCount));
+    }
+
+    private ResultWriter writer(java.io.PrintStream target) {
+        return new ResultWriter(target, OutputFormat.parse(output), skip, limit);
+    }
+
+    private void executeEach(Chain chain) throws Exception {
+        int position = eachIndex != null ? eachIndex : java.util.Arrays.asList(args).indexOf("-");
+        if (position < 0) {
+            position = args.length;
+        }
+        if (position > args.length) {
+            throw new IllegalArgumentException("--each-index " + position + " is beyond the " + args.length
+                    + " argument(s) given");
         }
 
-        // 3. Try Instance Match with Argument 0 as Instance Source
-        // (Legacy behavior / String constructor behavior)
-        if (args.length > 0) {
-            Optional<Method> instanceMatch = ReflectionCommand.findMethod(targetClass, method, args.length - 1);
-            if (instanceMatch.isPresent() && !Modifier.isStatic(instanceMatch.get().getModifiers())) {
-                String instanceText = args[0];
-                String[] realArgs = java.util.Arrays.copyOfRange(args, 1, args.length);
-
-                Object instance;
-                if (config.factory() != null) {
-                    instance = ReflectionCommand.invoke(null, targetClass, config.factory(),
-                            new String[] { instanceText });
-                } else if (targetClass.equals(String.class)) {
-                    instance = instanceText;
-                } else {
-                    instance = ReflectionCommand.createInstance(targetClass, instanceText);
-                }
-
-                Object result = ReflectionCommand.invoke(instance, targetClass, method, realArgs);
-                System.out.println(result);
-                return;
+        // The slot at 'position' receives each line; a '-' already there is the placeholder
+        CharSequence[] template;
+        if (position < args.length && "-".equals(args[position])) {
+            template = java.util.Arrays.copyOf(args, args.length, CharSequence[].class);
+        } else {
+            template = new CharSequence[args.length + 1];
+            System.arraycopy(args, 0, template, 0, position);
+            System.arraycopy(args, position, template, position + 1, args.length - position);
+        }
+        for (int i = 0; i < template.length; i++) {
+            if (i == position) {
+                continue;
             }
+            if ("-".equals(template[i])) {
+                throw new IllegalArgumentException("stdin is consumed line by line in --each mode; '-' can only be used once");
+            }
+            template[i] = ReflectionCommand.resolveInput((String) template[i]);
         }
-
-        // Diagnosis
-        String error = ReflectionCommand.diagnoseError(targetClass, method, args.length);
-        if (args.length > 0) {
-            String instanceError = ReflectionCommand.diagnoseError(targetClass, method, args.length - 1);
-            if (!instanceError.startsWith("No method found") && !instanceError.contains("different arguments")) {
-                error = instanceError;
+        chain.resolveArguments();
+        Timings.mark("argument resolution");
+
+        ExecutionPlan plan = plan(template.length);
+        Timings.mark("method resolution");
+        ResultWriter out = writer(StdIo.out());
+        java.io.Reader in = new java.io.InputStreamReader(StdIo.in(), java.nio.charset.StandardCharsets.UTF_8);
+
+        long start = System.nanoTime();
+        LineBatch batch = new LineBatch(plan, chain, template, position);
+        long failures;
+        if (parallel != null) {
+            if (parallel < 1) {
+                throw new IllegalArgumentException("--parallel must be at least 1, got " + parallel);
             }
+            failures = batch.runParallel(in, out, StdIo.err(), parallel, !unordered);
+        } else {
+            failures = batch.run(in, out, StdIo.err());
+        }
+        failed = failures > 0;
+        if (System.getProperty("jcli.debug") != null) {
+            StdIo.err().printf("--each finished in %.3f ms with %d failed line(s)%n",
+                    (System.nanoTime() - start) / 1_000_000.0, failures);
         }
-
-        throw new IllegalArgumentException(error);
     }
 }
@@ -0,0 +1,269 @@
+package jcli.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A large byte buffer in front of a {@link WritableByteChannel}. Text is
+ * encoded straight into the buffer: ASCII byte for byte when the charset
+ * allows it, anything else through a reused {@link CharsetEncoder}, so no
+ * {@code String} or {@code byte[]} is built per write. Numbers are formatted
+ * in place.
+ */
+final class ByteSink {
+
+    // Longer texts are encoded in bulk rather than char by char
+    private static final int SHORT_TEXT = 64;
+    private static final int CHUNK = 1 << 13;
+    // Small results never touch more than this; the buffer grows towards
+    // its capacity only as output accumulates
+    private static final int INITIAL_CAPACITY = 1 << 13;
+
+    private final WritableByteChannel channel;
+    private final OutputStream target;
+    private final int capacity;
+    private ByteBuffer buffer;
+    private final CharsetEncoder encoder;
+    // Whether chars below 0x80 encode as the single byte of the same value
+    private final boolean asciiCompatible;
+    private final byte[] digits = new byte[20];
+    private char[] chunk;
+
+    ByteSink(OutputStream target, Charset charset, int capacity) {
+        this.channel = new StreamChannel(target);
+        this.target = target;
+        this.capacity = capacity;
+        this.buffer = ByteBuffer.allocate(Math.min(capacity, INITIAL_CAPACITY));
+        this.encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.asciiCompatible = charset.equals(StandardCharsets.UTF_8) || charset.equals(StandardCharsets.US_ASCII)
+                || charset.equals(StandardCharsets.ISO_8859_1);
+    }
+
+    void writeByte(int b) throws IOException {
+        if (!buffer.hasRemaining()) {
+            makeRoom();
+        }
+        buffer.put((byte) b);
+    }
+
+    void writeBytes(byte[] bytes) throws IOException {
+        writeBytes(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * Writes the remaining bytes of {@code bytes} without moving its position.
+     * Chunks larger than the buffer go to the channel directly.
+     */
+    void writeBytes(ByteBuffer bytes) throws IOException {
+        ByteBuffer source = bytes.duplicate();
+        if (source.remaining() > buffer.remaining()) {
+            int needed = buffer.position() + source.remaining();
+            if (needed <= capacity) {
+                grow(Math.max(needed, buffer.capacity() * 4));
+                buffer.put(source);
+                return;
+            }
+            drain();
+            // The buffer may not have grown to its capacity yet
+            if (source.remaining() > buffer.remaining()) {
+                while (source.hasRemaining()) {
+                    channel.write(source);
+                }
+                return;
+            }
+        }
+        buffer.put(source);
+    }
+
+    void writeChar(char c) throws IOException {
+        if (asciiCompatible && c < 0x80) {
+            writeByte(c);
+        } else {
+            encode(CharBuffer.wrap(new char[] { c }));
+        }
+    }
+
+    void writeText(CharSequence text) throws IOException {
+        writeText(text, 0, text.length());
+    }
+
+    void writeText(CharSequence text, int start, int end) throws IOException {
+        if (end - start > SHORT_TEXT) {
+            writeLongText(text, start, end);
+            return;
+        }
+        int i = start;
+        if (asciiCompatible) {
+            for (; i < end; i++) {
+                char c = text.charAt(i);
+                if (c >= 0x80) {
+                    break;
+                }
+                if (!buffer.hasRemaining()) {
+                    makeRoom();
+                }
+                buffer.put((byte) c);
+            }
+        }
+        if (i < end) {
+            // A view over the rest, not a copy
+            encode(CharBuffer.wrap(text, i, end));
+        }
+    }
+
+    // Copied through a char[] in chunks, so the encoder takes its array fast path
+    private void writeLongText(CharSequence text, int start, int end) throws IOException {
+        if (chunk == null) {
+            chunk = new char[CHUNK];
+        }
+        encoder.reset();
+        int i = start;
+        while (i < end) {
+            int n = Math.min(CHUNK, end - i);
+            // A surrogate pair is never split between chunks
+            if (i + n < end && Character.isHighSurrogate(text.charAt(i + n - 1))) {
+                n--;
+            }
+            if (text instanceof String) {
+                ((String) text).getChars(i, i + n, chunk, 0);
+            } else if (text instanceof StringBuilder) {
+                ((StringBuilder) text).getChars(i, i + n, chunk, 0);
+            } else {
+                for (int j = 0; j < n; j++) {
+                    chunk[j] = text.charAt(i + j);
+                }
+            }
+            i += n;
+            CharBuffer chars = CharBuffer.wrap(chunk, 0, n);
+            while (encoder.encode(chars, buffer, i == end).isOverflow()) {
+                makeRoom();
+            }
+        }
+        finishEncoding();
+    }
+
+    void writeLong(long value) throws IOException {
+        if (!asciiCompatible || value == Long.MIN_VALUE) {
+            writeText(Long.toString(value));
+            return;
+        }
+        if (buffer.remaining() < digits.length) {
+            makeRoom();
+        }
+        if (value < 0) {
+            buffer.put((byte) '-');
+            value = -value;
+        }
+        int position = digits.length;
+        do {
+            digits[--position] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        buffer.put(digits, position, digits.length - position);
+    }
+
+    /**
+     * Hands everything buffered to the channel and flushes the stream behind
+     * it.
+     */
+    void flush() throws IOException {
+        drain();
+        target.flush();
+    }
+
+    private void encode(CharBuffer chars) throws IOException {
+        encoder.reset();
+        while (encoder.encode(chars, buffer, true).isOverflow()) {
+            makeRoom();
+        }
+        finishEncoding();
+    }
+
+    private void finishEncoding() throws IOException {
+        CoderResult result;
+        while ((result = encoder.flush(buffer)).isOverflow()) {
+            makeRoom();
+        }
+        if (result.isError()) {
+            result.throwException();
+        }
+    }
+
+    // Called when the buffer is full: grows it until it reaches its capacity,
+    // then hands it to the channel
+    private void makeRoom() throws IOException {
+        if (buffer.capacity() < capacity) {
+            grow(buffer.capacity() * 4);
+        } else {
+            drain();
+        }
+    }
+
+    private void grow(int size) {
+        ByteBuffer larger = ByteBuffer.allocate(Math.min(capacity, size));
+        buffer.flip();
+        larger.put(buffer);
+        buffer = larger;
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Writes heap buffers to the stream in one call each, unlike
+     * {@link java.nio.channels.Channels#newChannel(OutputStream)}, which
+     * copies through an 8 KB array.
+     */
+    private static final class StreamChannel implements WritableByteChannel {
+
+        private final OutputStream out;
+        private byte[] scratch;
+        private boolean open = true;
+
+        StreamChannel(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public int write(ByteBuffer source) throws IOException {
+            int length = source.remaining();
+            if (source.hasArray()) {
+                out.write(source.array(), source.arrayOffset() + source.position(), length);
+                source.position(source.limit());
+                return length;
+            }
+            if (scratch == null || scratch.length < Math.min(length, 1 << 16)) {
+                scratch = new byte[Math.min(length, 1 << 16)];
+            }
+            int chunk = Math.min(length, scratch.length);
+            source.get(scratch, 0, chunk);
+            out.write(scratch, 0, chunk);
+            return chunk;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public void close() {
+            open = false;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package jcli.io;
+
+import java.util.Locale;
+
+/**
+ * How {@link ResultWriter} renders results, chosen with {@code --output}.
+ */
+public enum OutputFormat {
+
+    /** {@code toString()} per line, streams one element per line; the default. */
+    TEXT,
+    /** One JSON document per result; streams, arrays and collections become JSON arrays. */
+    JSON,
+    /** One JSON value per line for each element of a stream, array or collection. */
+    JSONL,
+    /** Like {@code TEXT} per element, but each record ends with a NUL byte ({@code xargs -0}). */
+    NUL,
+    /** {@code byte[]}, {@code ByteBuffer} and text exactly as they are, with no separators. */
+    RAW;
+
+    public static OutputFormat parse(String name) {
+        for (OutputFormat format : values()) {
+            if (format.name().equalsIgnoreCase(name)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unknown output format '" + name
+                + "'; expected text, json, jsonl, nul or raw");
+    }
+
+    @Override
+    public String toString() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
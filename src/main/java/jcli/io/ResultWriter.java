@@ -0,0 +1,448 @@
+package jcli.io;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.lang.reflect.RecordComponent;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.OptionalInt;
+import java.util.OptionalLong;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.BaseStream;
+import java.util.stream.IntStream;
+
+/**
+ * Writes command results in an {@link OutputFormat}. Streams, iterators,
+ * spliterators and enumerations are consumed lazily and written one element
+ * at a time, so infinite sources such as {@code Random.ints} only produce what
+ * {@code --skip}/{@code --limit} ask for and memory stays flat. In the
+ * {@code json}, {@code jsonl}, {@code nul} and {@code raw} formats, arrays and
+ * collections are written element by element too, and the window applies to
+ * them as well.
+ *
+ * <p>
+ * Values are serialized straight into a {@link ByteSink}: arrays (primitive
+ * ones without boxing), collections, maps and records are walked rather than
+ * turned into one {@code String} first, and {@code byte[]} results are written
+ * as raw bytes except in JSON.
+ *
+ * <p>
+ * Output is buffered; call {@link #flush()} when done. Writing stops early
+ * once the target {@link PrintStream} reports an error (e.g. a closed pipe
+ * after {@code | head}), since a {@code PrintStream} never throws.
+ */
+public final class ResultWriter {
+
+    public static final int BUFFER_SIZE = 1 << 18;
+
+    // How many elements are written between checks for a broken target
+    private static final int CHECK_INTERVAL = 1024;
+
+    // Deeper nesting than this is taken to be a cycle
+    private static final int MAX_DEPTH = 256;
+
+    private static final ClassValue<Method[]> RECORD_ACCESSORS = new ClassValue<>() {
+        @Override
+        protected Method[] computeValue(Class<?> type) {
+            RecordComponent[] components = type.getRecordComponents();
+            Method[] accessors = new Method[components.length];
+            for (int i = 0; i < components.length; i++) {
+                accessors[i] = components[i].getAccessor();
+                // Records nested in non-public classes are still readable
+                accessors[i].trySetAccessible();
+            }
+            return accessors;
+        }
+    };
+
+    private final PrintStream target;
+    private final ByteSink out;
+    private final OutputFormat format;
+    private final long skip;
+    private final long limit;
+
+    /**
+     * Writes {@link OutputFormat#TEXT}.
+     *
+     * @param skip  elements to drop from the start of each streamed result
+     * @param limit maximum elements written per streamed result, or a negative
+     *              value for no limit
+     */
+    public ResultWriter(PrintStream target, long skip, long limit) {
+        this(target, OutputFormat.TEXT, skip, limit);
+    }
+
+    public ResultWriter(PrintStream target, OutputFormat format, long skip, long limit) {
+        this.target = target;
+        this.out = new ByteSink(target, target.charset(), BUFFER_SIZE);
+        this.format = format;
+        this.skip = skip;
+        this.limit = limit < 0 ? Long.MAX_VALUE : limit;
+    }
+
+    /**
+     * Writes {@code result} followed by the format's terminator (a line
+     * separator, {@code \n} for JSON, NUL, or nothing for raw). Streams are
+     * closed afterwards.
+     */
+    public void write(Object result) throws IOException {
+        try {
+            switch (format) {
+                case JSON:
+                    writeJson(result);
+                    break;
+                case JSONL:
+                    writeEach(result, "\n");
+                    break;
+                case NUL:
+                    writeEach(result, "\0");
+                    break;
+                case RAW:
+                    writeEach(result, "");
+                    break;
+                default:
+                    writeText(result);
+            }
+        } finally {
+            if (result instanceof BaseStream) {
+                ((BaseStream<?, ?>) result).close();
+            }
+        }
+    }
+
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    private void writeText(Object result) throws IOException {
+        Iterator<?> elements = lazyElements(result);
+        if (elements != null) {
+            writeElements(elements, null, System.lineSeparator());
+        } else {
+            writePlain(result);
+            out.writeText(System.lineSeparator());
+        }
+    }
+
+    private void writeJson(Object result) throws IOException {
+        Iterator<?> elements = elements(result);
+        if (elements != null) {
+            out.writeChar('[');
+            writeElements(elements, ",", "");
+            out.writeChar(']');
+        } else {
+            writeJsonValue(result, 0);
+        }
+        out.writeChar('\n');
+    }
+
+    // One record per element of a multi-valued result, else one record
+    private void writeEach(Object result, String terminator) throws IOException {
+        Iterator<?> elements = result instanceof byte[] || result instanceof ByteBuffer ? null : elements(result);
+        if (elements != null) {
+            writeElements(elements, null, terminator);
+        } else {
+            writeElement(result);
+            out.writeText(terminator);
+        }
+    }
+
+    private void writeElements(Iterator<?> elements, String separator, String terminator) throws IOException {
+        for (long skipped = 0; skipped < skip && elements.hasNext(); skipped++) {
+            elements.next();
+        }
+        for (long written = 0; written < limit && elements.hasNext(); written++) {
+            if (separator != null && written > 0) {
+                out.writeText(separator);
+            }
+            writeNext(elements);
+            out.writeText(terminator);
+            if (written % CHECK_INTERVAL == CHECK_INTERVAL - 1 && isBroken()) {
+                return;
+            }
+        }
+    }
+
+    // Primitive streams and arrays are read without boxing each element
+    private void writeNext(Iterator<?> elements) throws IOException {
+        if (elements instanceof PrimitiveIterator.OfInt) {
+            out.writeLong(((PrimitiveIterator.OfInt) elements).nextInt());
+        } else if (elements instanceof PrimitiveIterator.OfLong) {
+            out.writeLong(((PrimitiveIterator.OfLong) elements).nextLong());
+        } else if (elements instanceof PrimitiveIterator.OfDouble) {
+            writeDouble(((PrimitiveIterator.OfDouble) elements).nextDouble());
+        } else {
+            writeElement(elements.next());
+        }
+    }
+
+    private void writeElement(Object value) throws IOException {
+        if (format == OutputFormat.JSON || format == OutputFormat.JSONL) {
+            writeJsonValue(value, 1);
+        } else {
+            writePlain(value);
+        }
+    }
+
+    // Text formats: bytes as they are, everything else as text
+    private void writePlain(Object value) throws IOException {
+        if (value instanceof byte[]) {
+            out.writeBytes((byte[]) value);
+        } else if (value instanceof ByteBuffer) {
+            out.writeBytes((ByteBuffer) value);
+        } else {
+            writeTextValue(value, 0);
+        }
+    }
+
+    private void writeTextValue(Object value, int depth) throws IOException {
+        if (value instanceof CharSequence) {
+            out.writeText((CharSequence) value);
+        } else if (value instanceof Integer || value instanceof Long || value instanceof Short
+                || value instanceof Byte) {
+            out.writeLong(((Number) value).longValue());
+        } else if (value != null && value.getClass().isArray()) {
+            // As Arrays.deepToString would print it
+            checkDepth(depth);
+            Iterator<?> elements = arrayElements(value);
+            out.writeChar('[');
+            for (boolean first = true; elements.hasNext(); first = false) {
+                if (!first) {
+                    out.writeText(", ");
+                }
+                if (elements instanceof PrimitiveIterator) {
+                    writeNext(elements);
+                } else {
+                    writeTextValue(elements.next(), depth + 1);
+                }
+            }
+            out.writeChar(']');
+        } else {
+            out.writeText(String.valueOf(value));
+        }
+    }
+
+    private void writeJsonValue(Object value, int depth) throws IOException {
+        checkDepth(depth);
+        if (value == null) {
+            out.writeText("null");
+        } else if (value instanceof CharSequence) {
+            writeJsonString((CharSequence) value);
+        } else if (value instanceof Boolean) {
+            out.writeText(value.toString());
+        } else if (value instanceof Integer || value instanceof Long || value instanceof Short
+                || value instanceof Byte) {
+            out.writeLong(((Number) value).longValue());
+        } else if (value instanceof Double || value instanceof Float) {
+            writeDouble(((Number) value).doubleValue());
+        } else if (value instanceof BigInteger || value instanceof BigDecimal) {
+            out.writeText(value.toString());
+        } else if (value instanceof Optional) {
+            writeJsonValue(((Optional<?>) value).orElse(null), depth + 1);
+        } else if (value instanceof OptionalInt) {
+            OptionalInt optional = (OptionalInt) value;
+            writeJsonValue(optional.isPresent() ? optional.getAsInt() : null, depth + 1);
+        } else if (value instanceof OptionalLong) {
+            OptionalLong optional = (OptionalLong) value;
+            writeJsonValue(optional.isPresent() ? optional.getAsLong() : null, depth + 1);
+        } else if (value instanceof OptionalDouble) {
+            OptionalDouble optional = (OptionalDouble) value;
+            writeJsonValue(optional.isPresent() ? optional.getAsDouble() : null, depth + 1);
+        } else if (value instanceof Map) {
+            writeJsonObject((Map<?, ?>) value, depth);
+        } else if (value.getClass().isRecord()) {
+            writeJsonRecord(value, depth);
+        } else {
+            Iterator<?> elements = elements(value);
+            if (elements == null) {
+                writeJsonString(value instanceof Enum ? ((Enum<?>) value).name() : String.valueOf(value));
+                return;
+            }
+            try {
+                writeJsonArray(elements, depth);
+            } finally {
+                if (value instanceof BaseStream) {
+                    ((BaseStream<?, ?>) value).close();
+                }
+            }
+        }
+    }
+
+    private void writeJsonArray(Iterator<?> elements, int depth) throws IOException {
+        out.writeChar('[');
+        for (boolean first = true; elements.hasNext(); first = false) {
+            if (!first) {
+                out.writeChar(',');
+            }
+            if (elements instanceof PrimitiveIterator) {
+                writeNext(elements);
+            } else {
+                writeJsonValue(elements.next(), depth + 1);
+            }
+        }
+        out.writeChar(']');
+    }
+
+    private void writeJsonObject(Map<?, ?> map, int depth) throws IOException {
+        out.writeChar('{');
+        boolean first = true;
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            if (!first) {
+                out.writeChar(',');
+            }
+            first = false;
+            Object key = entry.getKey();
+            writeJsonString(key instanceof CharSequence ? (CharSequence) key : String.valueOf(key));
+            out.writeChar(':');
+            writeJsonValue(entry.getValue(), depth + 1);
+        }
+        out.writeChar('}');
+    }
+
+    private void writeJsonRecord(Object record, int depth) throws IOException {
+        Method[] accessors = RECORD_ACCESSORS.get(record.getClass());
+        // Read before anything is written, so a failure cannot leave half an object
+        Object[] values = new Object[accessors.length];
+        try {
+            for (int i = 0; i < accessors.length; i++) {
+                values[i] = accessors[i].invoke(record);
+            }
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            writeJsonString(record.toString());
+            return;
+        }
+        out.writeChar('{');
+        for (int i = 0; i < accessors.length; i++) {
+            if (i > 0) {
+                out.writeChar(',');
+            }
+            writeJsonString(accessors[i].getName());
+            out.writeChar(':');
+            writeJsonValue(values[i], depth + 1);
+        }
+        out.writeChar('}');
+    }
+
+    // Runs that need no escaping are written as they are
+    private void writeJsonString(CharSequence text) throws IOException {
+        out.writeChar('"');
+        int run = 0;
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\') {
+                continue;
+            }
+            out.writeText(text, run, i);
+            run = i + 1;
+            switch (c) {
+                case '"':
+                    out.writeText("\\\"");
+                    break;
+                case '\\':
+                    out.writeText("\\\\");
+                    break;
+                case '\n':
+                    out.writeText("\\n");
+                    break;
+                case '\r':
+                    out.writeText("\\r");
+                    break;
+                case '\t':
+                    out.writeText("\\t");
+                    break;
+                case '\b':
+                    out.writeText("\\b");
+                    break;
+                case '\f':
+                    out.writeText("\\f");
+                    break;
+                default:
+                    out.writeText("\\u00");
+                    out.writeChar(Character.forDigit(c >> 4, 16));
+                    out.writeChar(Character.forDigit(c & 0xF, 16));
+            }
+        }
+        out.writeText(text, run, length);
+        out.writeChar('"');
+    }
+
+    // JSON has no NaN or infinities; they are written as strings
+    private void writeDouble(double value) throws IOException {
+        boolean json = format == OutputFormat.JSON || format == OutputFormat.JSONL;
+        if (json && !Double.isFinite(value)) {
+            writeJsonString(Double.toString(value));
+        } else {
+            out.writeText(Double.toString(value));
+        }
+    }
+
+    private static void checkDepth(int depth) {
+        if (depth > MAX_DEPTH) {
+            throw new IllegalArgumentException("Result is nested more than " + MAX_DEPTH
+                    + " levels deep; is it cyclic?");
+        }
+    }
+
+    // The elements of a stream-like value, or null
+    private static Iterator<?> lazyElements(Object value) {
+        if (value instanceof BaseStream) {
+            return ((BaseStream<?, ?>) value).iterator();
+        }
+        if (value instanceof Iterator) {
+            return (Iterator<?>) value;
+        }
+        if (value instanceof Spliterator) {
+            return Spliterators.iterator((Spliterator<?>) value);
+        }
+        if (value instanceof Enumeration) {
+            return ((Enumeration<?>) value).asIterator();
+        }
+        return null;
+    }
+
+    // Stream-like values, collections and arrays; null for anything else
+    private static Iterator<?> elements(Object value) {
+        if (value instanceof Collection) {
+            return ((Collection<?>) value).iterator();
+        }
+        if (value != null && value.getClass().isArray()) {
+            return arrayElements(value);
+        }
+        return lazyElements(value);
+    }
+
+    private static Iterator<?> arrayElements(Object array) {
+        if (array instanceof Object[]) {
+            return Arrays.asList((Object[]) array).iterator();
+        }
+        if (array instanceof int[]) {
+            return Arrays.stream((int[]) array).iterator();
+        }
+        if (array instanceof long[]) {
+            return Arrays.stream((long[]) array).iterator();
+        }
+        if (array instanceof double[]) {
+            return Arrays.stream((double[]) array).iterator();
+        }
+        // byte, short, char, float and boolean arrays
+        return IntStream.range(0, Array.getLength(array)).mapToObj(i -> Array.get(array, i)).iterator();
+    }
+
+    private boolean isBroken() throws IOException {
+        out.flush();
+        return target.checkError();
+    }
+}
@@ -0,0 +1,197 @@
+package jcli.io;
+
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A {@link CharSequence} over UTF-8 bytes that are decoded lazily. Pure ASCII
+ * content (the common case for JSON, CSV, logs and numbers) is served straight
+ * from the bytes, so a memory-mapped file is never copied onto the heap;
+ * anything else is decoded once on first access. Leading and trailing
+ * whitespace is excluded, matching {@link String#trim()}.
+ *
+ * <p>
+ * Being a {@code CharSequence} caps a view at 2 GB.
+ */
+public final class TextView implements CharSequence {
+
+    // Pipes are read into an array that starts at this size and doubles, so
+    // small inputs stay small
+    private static final int INITIAL_READ = 1 << 14;
+
+    private final ByteBuffer bytes;
+    private final int start;
+    private final int end;
+    // Whether [start, end) is ASCII; UNKNOWN until first access
+    private static final byte UNKNOWN = 0;
+    private static final byte ASCII = 1;
+    private static final byte NON_ASCII = 2;
+    private byte kind;
+    private CharSequence decoded;
+
+    private TextView(ByteBuffer bytes, int start, int end, byte kind) {
+        this.bytes = bytes;
+        this.start = start;
+        this.end = end;
+        this.kind = kind;
+    }
+
+    /**
+     * Views the bytes between {@code buffer}'s position and limit.
+     */
+    public static TextView of(ByteBuffer buffer) {
+        ByteBuffer bytes = buffer.slice();
+        int start = 0;
+        int end = bytes.limit();
+        while (start < end && (bytes.get(start) & 0xFF) <= ' ') {
+            start++;
+        }
+        while (end > start && (bytes.get(end - 1) & 0xFF) <= ' ') {
+            end--;
+        }
+        return new TextView(bytes, start, end, UNKNOWN);
+    }
+
+    /**
+     * Memory-maps {@code path} read-only.
+     */
+    public static TextView map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("File is larger than 2 GB: " + path);
+            }
+            return of(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        }
+    }
+
+    /**
+     * Reads {@code in} to the end. Process stdin redirected from a regular file
+     * is memory-mapped, unless {@code System.in} has already buffered some of
+     * it; pipes and sockets are read into a single growing byte array.
+     */
+    public static TextView read(InputStream in) throws IOException {
+        if (in == System.in) {
+            TextView mapped = mapStdin(in);
+            if (mapped != null) {
+                return mapped;
+            }
+        }
+
+        byte[] data = new byte[INITIAL_READ];
+        int size = 0;
+        int n;
+        while ((n = in.read(data, size, data.length - size)) != -1) {
+            size += n;
+            if (size == data.length) {
+                if (size >= Integer.MAX_VALUE - 8) {
+                    throw new IOException("Input is larger than 2 GB");
+                }
+                data = java.util.Arrays.copyOf(data, (int) Math.min(Integer.MAX_VALUE - 8L, (long) size * 2));
+            }
+        }
+        return of(ByteBuffer.wrap(data, 0, size));
+    }
+
+    // Stdin redirected from a file ('< big.json') has a seekable descriptor.
+    // The map starts at the descriptor's position, which is past anything
+    // System.in's buffer has read ahead; those bytes would be lost, so when
+    // System.in reports more available than the file has left, it is read
+    // as a stream instead.
+    private static TextView mapStdin(InputStream in) {
+        // Not closed: that would close the process's stdin
+        @SuppressWarnings("resource")
+        FileChannel channel = new FileInputStream(FileDescriptor.in).getChannel();
+        try {
+            long position = channel.position();
+            long size = channel.size();
+            if (size <= position || size - position > Integer.MAX_VALUE) {
+                return null;
+            }
+            if (in.available() != size - position) {
+                return null;
+            }
+            TextView view = of(channel.map(FileChannel.MapMode.READ_ONLY, position, size - position));
+            channel.position(size);
+            return view;
+        } catch (IOException e) {
+            // Pipe or terminal: not seekable
+            return null;
+        }
+    }
+
+    @Override
+    public int length() {
+        return isAscii() ? end - start : decoded().length();
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (isAscii()) {
+            if (index < 0 || index >= end - start) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            return (char) bytes.get(start + index);
+        }
+        return decoded().charAt(index);
+    }
+
+    @Override
+    public CharSequence subSequence(int from, int to) {
+        if (isAscii()) {
+            if (from < 0 || to > end - start || from > to) {
+                throw new IndexOutOfBoundsException("[" + from + ", " + to + ")");
+            }
+            return new TextView(bytes, start + from, start + to, ASCII);
+        }
+        return decoded().subSequence(from, to);
+    }
+
+    @Override
+    public String toString() {
+        if (decoded != null) {
+            return decoded.toString();
+        }
+        byte[] copy = new byte[end - start];
+        bytes.get(start, copy);
+        return new String(copy, StandardCharsets.UTF_8);
+    }
+
+    private boolean isAscii() {
+        byte result = kind;
+        if (result == UNKNOWN) {
+            result = ASCII;
+            for (int i = start; i < end; i++) {
+                if (bytes.get(i) < 0) {
+                    result = NON_ASCII;
+                    break;
+                }
+            }
+            kind = result;
+        }
+        return result == ASCII;
+    }
+
+    private CharSequence decoded() {
+        if (decoded == null) {
+            try {
+                decoded = StandardCharsets.UTF_8.newDecoder()
+                        .onMalformedInput(CodingErrorAction.REPLACE)
+                        .onUnmappableCharacter(CodingErrorAction.REPLACE)
+                        .decode(bytes.slice(start, end - start));
+            } catch (java.nio.charset.CharacterCodingException e) {
+                // Unreachable with REPLACE
+                throw new IllegalStateException(e);
+            }
+        }
+        return decoded;
+    }
+}
@@ -0,0 +1,185 @@
+package jcli.json;
+
+import com.jayway.jsonpath.Configuration;
+import com.jayway.jsonpath.JsonPath;
+import com.jayway.jsonpath.Option;
+import com.jayway.jsonpath.spi.json.JsonProvider;
+import jcli.core.LineBatch;
+import jcli.core.StdIo;
+import jcli.core.Timings;
+import jcli.io.OutputFormat;
+import jcli.io.ResultWriter;
+import net.minidev.json.JSONValue;
+import picocli.CommandLine;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.StringJoiner;
+import java.util.concurrent.Callable;
+
+/**
+ * {@code jcli json}: evaluates JsonPath queries against a JSON document or
+ * against each record of an NDJSON stream. The input is read from
+ * {@code @file} or stdin and parsed once, straight from the bytes, however
+ * many {@code --query} expressions there are; the expressions are compiled
+ * once up front.
+ *
+ * <p>
+ * NDJSON (given {@code --ndjson}, or a {@code .ndjson}/{@code .jsonl} file) is
+ * processed one record at a time, so multi-GB inputs stream through. With
+ * {@code --parallel}, each worker holds at most one record. A record that
+ * fails to parse is reported with its line number and skipped.
+ */
+@CommandLine.Command(name = JsonQueryCommand.NAME, description = "Evaluate JsonPath queries against a JSON document or NDJSON records, parsing the input once.")
+public class JsonQueryCommand implements Callable<Integer> {
+
+    public static final String NAME = "json";
+
+    // A path that is missing from a record gives null (or an empty list)
+    // instead of failing it
+    private static final Configuration CONFIGURATION = Configuration.defaultConfiguration()
+            .addOptions(Option.SUPPRESS_EXCEPTIONS);
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    @CommandLine.Option(names = { "-q", "--query" }, required = true, paramLabel = "<path>", description = "JsonPath expression to evaluate, e.g. '$.user.id'. Repeat for several; each result is then an object keyed by expression.")
+    List<String> queries;
+
+    @CommandLine.Option(names = "--ndjson", description = "Treat the input as newline-delimited JSON and query each record (implied by a .ndjson or .jsonl file).")
+    boolean ndjson;
+
+    @CommandLine.Option(names = "--parallel", paramLabel = "<threads>", description = "With NDJSON input, query up to <threads> records at a time. Output keeps input order unless --unordered is given.")
+    Integer parallel;
+
+    @CommandLine.Option(names = "--unordered", description = "With --parallel, write each result as soon as it is ready instead of in input order.")
+    boolean unordered;
+
+    @CommandLine.Option(names = "--output", paramLabel = "<format>", description = "How results are written: json (the default), jsonl, text, nul or raw.")
+    String output = "json";
+
+    @CommandLine.Parameters(index = "0", arity = "0..1", paramLabel = "<input>", description = "The JSON input: @file (or a plain path), or '-' for stdin (the default).")
+    String input = "-";
+
+    @Override
+    public Integer call() {
+        Timings.mark("argument parsing");
+        try {
+            JsonPath[] paths = new JsonPath[queries.size()];
+            for (int i = 0; i < paths.length; i++) {
+                paths[i] = JsonPath.compile(queries.get(i));
+            }
+            ResultWriter out = new ResultWriter(StdIo.out(), OutputFormat.parse(output), 0, -1);
+
+            if (ndjson || isNdjsonFile(input)) {
+                return queryRecords(paths, out) == 0 ? 0 : 1;
+            }
+            if (parallel != null) {
+                throw new IllegalArgumentException("--parallel requires NDJSON input (--ndjson)");
+            }
+
+            Object document;
+            InputStream in = open();
+            try {
+                document = CONFIGURATION.jsonProvider().parse(in, StandardCharsets.UTF_8.name());
+            } finally {
+                if (!"-".equals(input)) {
+                    in.close();
+                }
+            }
+            Timings.mark("JSON parsing");
+            out.write(query(paths, document));
+            out.flush();
+            Timings.mark("output");
+            return 0;
+        } catch (Exception e) {
+            StdIo.err().println("Error: " + e.getMessage());
+            if (System.getProperty("jcli.debug") != null) {
+                e.printStackTrace(StdIo.err());
+            }
+            return 1;
+        }
+    }
+
+    private long queryRecords(JsonPath[] paths, ResultWriter out) throws IOException {
+        if (parallel != null && parallel < 1) {
+            throw new IllegalArgumentException("--parallel must be at least 1, got " + parallel);
+        }
+        JsonProvider provider = CONFIGURATION.jsonProvider();
+        // One record in flight per worker bounds memory to the largest records
+        LineBatch batch = new LineBatch(
+                line -> line.isBlank() ? LineBatch.NO_RESULT : query(paths, provider.parse(line)), 1);
+
+        InputStream in = open();
+        try {
+            Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8);
+            return parallel != null
+                    ? batch.runParallel(reader, out, StdIo.err(), parallel, !unordered)
+                    : batch.run(reader, out, StdIo.err());
+        } finally {
+            if (!"-".equals(input)) {
+                in.close();
+            }
+        }
+    }
+
+    private Object query(JsonPath[] paths, Object document) {
+        if (paths.length == 1) {
+            return paths[0].read(document, CONFIGURATION);
+        }
+        Row row = new Row();
+        for (int i = 0; i < paths.length; i++) {
+            row.put(queries.get(i), paths[i].read(document, CONFIGURATION));
+        }
+        return row;
+    }
+
+    private InputStream open() throws IOException {
+        if ("-".equals(input)) {
+            return StdIo.in();
+        }
+        Path path = path(input);
+        try {
+            return new BufferedInputStream(Files.newInputStream(path), BUFFER_SIZE);
+        } catch (NoSuchFileException e) {
+            throw new NoSuchFileException(path.toString(), null, "File not found");
+        }
+    }
+
+    private static Path path(String input) {
+        return Path.of(input.startsWith("@") ? input.substring(1) : input);
+    }
+
+    private static boolean isNdjsonFile(String input) {
+        String name = input.toLowerCase(Locale.ROOT);
+        return !"-".equals(input) && (name.endsWith(".ndjson") || name.endsWith(".jsonl"));
+    }
+
+    /**
+     * The results of several queries over one document, keyed by expression.
+     * Written as a JSON object, or as tab-separated values in the text
+     * formats.
+     */
+    private static final class Row extends LinkedHashMap<String, Object> {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public String toString() {
+            StringJoiner values = new StringJoiner("\t");
+            for (Object value : values()) {
+                values.add(value instanceof CharSequence ? (CharSequence) value : JSONValue.toJSONString(value));
+            }
+            return values.toString();
+        }
+    }
+}
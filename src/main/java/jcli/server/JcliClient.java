@@ -0,0 +1,88 @@
+package jcli.server;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+
+/**
+ * Thin front end for {@link JcliServer}: forwards argv and stdin, replays the
+ * server's stdout and stderr, and exits with the command's exit code. It only
+ * touches JDK classes, so it starts without loading picocli, the command index
+ * or any target class.
+ *
+ * <pre>
+ * java -cp jcli-all.jar jcli.server.JcliClient UUID randomUUID
+ * </pre>
+ */
+public final class JcliClient {
+
+    private JcliClient() {
+    }
+
+    public static void main(String[] args) {
+        Path socketPath = Protocol.socketPath();
+        try (SocketChannel channel = SocketChannel.open(UnixDomainSocketAddress.of(socketPath))) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Protocol.output(channel), 1 << 16));
+            out.writeInt(args.length);
+            for (String arg : args) {
+                Protocol.writeString(out, arg);
+            }
+            out.flush();
+
+            Thread stdinPump = new Thread(() -> pumpStdin(out), "jcli-stdin");
+            stdinPump.setDaemon(true);
+            stdinPump.start();
+
+            DataInputStream in = new DataInputStream(new BufferedInputStream(Protocol.input(channel), 1 << 16));
+            byte[] buffer = new byte[1 << 16];
+            while (true) {
+                byte type = in.readByte();
+                if (type == Protocol.EXIT) {
+                    int exitCode = in.readInt();
+                    System.out.flush();
+                    System.err.flush();
+                    System.exit(exitCode);
+                }
+
+                PrintStream target = type == Protocol.STDERR ? System.err : System.out;
+                int remaining = in.readInt();
+                while (remaining > 0) {
+                    int n = in.read(buffer, 0, Math.min(buffer.length, remaining));
+                    if (n == -1) {
+                        throw new IOException("Connection closed mid-frame");
+                    }
+                    target.write(buffer, 0, n);
+                    remaining -= n;
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("jcli: cannot reach daemon at " + socketPath + ": " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private static void pumpStdin(DataOutputStream out) {
+        byte[] buffer = new byte[1 << 16];
+        try {
+            int n;
+            while ((n = System.in.read(buffer)) != -1) {
+                synchronized (out) {
+                    Protocol.writeFrame(out, Protocol.STDIN, buffer, 0, n);
+                    out.flush();
+                }
+            }
+            synchronized (out) {
+                Protocol.writeFrame(out, Protocol.STDIN, buffer, 0, 0);
+                out.flush();
+            }
+        } catch (IOException e) {
+            // The server finished the request without draining stdin
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package jcli.server;
+
+import jcli.JcliCommand;
+import jcli.config.CommandLoader;
+import jcli.core.StdIo;
+import picocli.CommandLine;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Long-lived jcli process serving requests from {@link JcliClient} over a
+ * Unix domain socket. The command index and the per-class method caches stay
+ * warm between requests. Each request runs on its own (virtual, where the
+ * runtime supports it) thread with its own command tree and standard streams
+ * bound through {@link StdIo}.
+ *
+ * <pre>
+ * java -cp jcli-all.jar jcli.server.JcliServer [socket-path]
+ * </pre>
+ */
+public class JcliServer {
+
+    private final Path socketPath;
+
+    public JcliServer(Path socketPath) {
+        this.socketPath = socketPath;
+    }
+
+    public static void main(String[] args) throws IOException {
+        // Silence java.util.logging (fixes TimeZone warnings)
+        java.util.logging.LogManager.getLogManager().reset();
+        java.util.logging.Logger.getLogger("").setLevel(java.util.logging.Level.OFF);
+
+        Path socketPath = args.length > 0 ? Path.of(args[0]) : Protocol.socketPath();
+        new JcliServer(socketPath).serve();
+    }
+
+    public void serve() throws IOException {
+        // Warm the registry before the first request arrives
+        CommandLoader.indexSize();
+
+        Files.deleteIfExists(socketPath);
+        ExecutorService executor = newRequestExecutor();
+        try (ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+            server.bind(UnixDomainSocketAddress.of(socketPath));
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    Files.deleteIfExists(socketPath);
+                } catch (IOException e) {
+                    // Nothing left to do on the way out
+                }
+            }));
+            System.err.println("jcli daemon listening on " + socketPath);
+
+            while (true) {
+                SocketChannel channel = server.accept();
+                executor.execute(() -> handle(channel));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void handle(SocketChannel channel) {
+        try (channel) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(Protocol.input(channel)));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Protocol.output(channel), 1 << 16));
+
+            String[] args = new String[in.readInt()];
+            for (int i = 0; i < args.length; i++) {
+                args[i] = Protocol.readString(in);
+            }
+
+            PrintStream stdout = new PrintStream(
+                    new BufferedOutputStream(new FrameOutputStream(out, Protocol.STDOUT), 8192), false,
+                    StandardCharsets.UTF_8);
+            PrintStream stderr = new PrintStream(
+                    new BufferedOutputStream(new FrameOutputStream(out, Protocol.STDERR), 8192), false,
+                    StandardCharsets.UTF_8);
+
+            int exitCode;
+            try {
+                exitCode = StdIo.with(new FrameInputStream(in), stdout, stderr, () -> {
+                    CommandLine cmd = JcliCommand.createCommandLine(args);
+                    cmd.setOut(new PrintWriter(stdout, true));
+                    cmd.setErr(new PrintWriter(stderr, true));
+                    return cmd.execute(args);
+                });
+            } catch (Exception e) {
+                stderr.println("jcli daemon: " + e.getMessage());
+                exitCode = 1;
+            }
+            stdout.flush();
+            stderr.flush();
+
+            synchronized (out) {
+                out.writeByte(Protocol.EXIT);
+                out.writeInt(exitCode);
+                out.flush();
+            }
+        } catch (IOException e) {
+            // Client went away mid-request
+        }
+    }
+
+    // Virtual threads are final from Java 21; on older runtimes (or without
+    // --enable-preview on 19/20) fall back to a cached pool of platform threads
+    private static ExecutorService newRequestExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    private static final class FrameOutputStream extends OutputStream {
+        private final DataOutputStream out;
+        private final byte type;
+
+        FrameOutputStream(DataOutputStream out, byte type) {
+            this.out = out;
+            this.type = type;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return;
+            }
+            synchronized (out) {
+                Protocol.writeFrame(out, type, b, off, len);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            synchronized (out) {
+                out.flush();
+            }
+        }
+    }
+
+    // Reads the client's stdin frames on demand, so requests that never touch
+    // stdin never wait for it
+    private static final class FrameInputStream extends InputStream {
+        private final DataInputStream in;
+        private int remaining;
+        private boolean eof;
+
+        FrameInputStream(DataInputStream in) {
+            this.in = in;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) == -1 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            while (remaining == 0) {
+                if (eof) {
+                    return -1;
+                }
+                try {
+                    if (in.readByte() != Protocol.STDIN) {
+                        throw new IOException("Unexpected frame from client");
+                    }
+                    remaining = in.readInt();
+                } catch (EOFException e) {
+                    remaining = 0;
+                }
+                if (remaining == 0) {
+                    eof = true;
+                }
+            }
+            int n = in.read(b, off, Math.min(len, remaining));
+            if (n == -1) {
+                eof = true;
+                remaining = 0;
+                return -1;
+            }
+            remaining -= n;
+            return n;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package jcli.server;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+/**
+ * Wire format shared by {@link JcliServer} and {@link JcliClient}.
+ *
+ * <p>
+ * The client sends {@code int argc} and {@code argc} strings, then stdin as
+ * {@link #STDIN} frames ending with an empty one. The server answers with
+ * {@link #STDOUT} and {@link #STDERR} frames and a final {@link #EXIT} frame
+ * carrying the exit code. A frame is a type byte, an {@code int} length and
+ * that many bytes; strings are length-prefixed UTF-8.
+ *
+ * <p>
+ * Kept to JDK types only so the client stays small and fast to start.
+ */
+final class Protocol {
+
+    static final byte STDIN = 0;
+    static final byte STDOUT = 1;
+    static final byte STDERR = 2;
+    static final byte EXIT = 3;
+
+    private Protocol() {
+    }
+
+    /**
+     * {@code -Djcli.socket}, else {@code $XDG_RUNTIME_DIR/jcli.sock}, else
+     * {@code jcli-<user>.sock} in the temp directory.
+     */
+    static Path socketPath() {
+        String configured = System.getProperty("jcli.socket");
+        if (configured != null) {
+            return Path.of(configured);
+        }
+        String runtimeDir = System.getenv("XDG_RUNTIME_DIR");
+        if (runtimeDir != null) {
+            return Path.of(runtimeDir, "jcli.sock");
+        }
+        return Path.of(System.getProperty("java.io.tmpdir"), "jcli-" + System.getProperty("user.name") + ".sock");
+    }
+
+    static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Always called under a lock on 'out' by the writer side
+    static void writeFrame(DataOutputStream out, byte type, byte[] bytes, int offset, int length) throws IOException {
+        out.writeByte(type);
+        out.writeInt(length);
+        out.write(bytes, offset, length);
+    }
+
+    // Channels.newInputStream/newOutputStream serialize reads and writes on
+    // the channel's blocking lock, which deadlocks a full-duplex exchange.
+    // These adapters call read/write directly, which lock independently.
+
+    static InputStream input(SocketChannel channel) {
+        return new InputStream() {
+            @Override
+            public int read() throws IOException {
+                byte[] one = new byte[1];
+                return read(one, 0, 1) == -1 ? -1 : one[0] & 0xFF;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                return len == 0 ? 0 : channel.read(ByteBuffer.wrap(b, off, len));
+            }
+        };
+    }
+
+    static OutputStream output(SocketChannel channel) {
+        return new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[] { (byte) b }, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                ByteBuffer buffer = ByteBuffer.wrap(b, off, len);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+        };
+    }
+}
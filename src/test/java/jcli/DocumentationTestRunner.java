@@ -2,107 +2,274 @@ package jcli;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jcli.core.StdIo;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
 import picocli.CommandLine;
 
 import java.io.File;
-import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+/**
+ * Runs every documented example in {@code docs/data.json}, checks that it
+ * succeeds, and doubles as a performance suite: each example's latency is
+ * recorded, summarized as per-command percentiles, written to
+ * {@code build/reports/perf/} and compared against a stored baseline.
+ *
+ * <p>
+ * Settings (system properties, forwarded from {@code -P} by Gradle):
+ * <ul>
+ * <li>{@code jcli.perf.iterations}: measured runs per example (default 3),
+ * after one warm-up run that also checks the exit code.</li>
+ * <li>{@code jcli.perf.baseline}: baseline file (default
+ * {@code src/test/resources/perf-baseline[-native].json}); no baseline means
+ * no comparison.</li>
+ * <li>{@code jcli.perf.updateBaseline=true}: write the results as the new
+ * baseline instead of comparing.</li>
+ * <li>{@code jcli.perf.threshold} (default 0.5) and
+ * {@code jcli.perf.slackMillis} (default 1): a command regresses when its p50
+ * exceeds {@code baseline * (1 + threshold) + slack}.</li>
+ * <li>{@code jcli.perf.native}: path of a native {@code jcli} binary; enables
+ * {@link #testNativeColdStart}, which spawns it once per example run.</li>
+ * </ul>
+ */
 class DocumentationTestRunner {
 
+    static final String NATIVE_PROPERTY = "jcli.perf.native";
+
+    // Commands that touch process-wide state (properties, defaults, child
+    // processes); their examples run one at a time, after the parallel batch
+    private static final Set<String> SERIAL_COMMANDS = Set.of(
+            "System", "Runtime", "Thread", "Locale", "TimeZone", "ProcessBuilder", "Console");
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
     @Test
-    void testDocumentedCommands() throws IOException {
-        File dataFile = new File("docs/data.json");
-        if (!dataFile.exists()) {
-            System.out.println("docs/data.json not found. Skipping test. Run 'gradle generateDocsJson' first.");
+    void testDocumentedCommands() throws Exception {
+        List<Example> examples = loadExamples();
+        if (examples == null) {
             return;
         }
 
-        ObjectMapper mapper = new ObjectMapper();
-        JsonNode root = mapper.readTree(dataFile);
-        JsonNode commands = root.path("commands");
+        Map<String, List<Long>> latencies = new ConcurrentHashMap<>();
+        List<String> failures = Collections.synchronizedList(new ArrayList<>());
+        List<Example> parallel = new ArrayList<>();
+        List<Example> serial = new ArrayList<>();
+        for (Example example : examples) {
+            (SERIAL_COMMANDS.contains(example.command()) ? serial : parallel).add(example);
+        }
 
-        List<String> failures = new ArrayList<>();
-        int successCount = 0;
+        ExecutorService pool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        try {
+            List<Future<?>> pending = new ArrayList<>();
+            for (Example example : parallel) {
+                pending.add(pool.submit(() -> measureInProcess(example, latencies, failures)));
+            }
+            for (Future<?> future : pending) {
+                future.get();
+            }
+        } finally {
+            pool.shutdown();
+            pool.awaitTermination(1, TimeUnit.MINUTES);
+        }
+        for (Example example : serial) {
+            measureInProcess(example, latencies, failures);
+        }
 
-        Iterator<JsonNode> elements = commands.elements();
-        while (elements.hasNext()) {
-            JsonNode commandNode = elements.next();
-            JsonNode methods = commandNode.path("methods");
-            Iterator<JsonNode> methodElements = methods.elements();
+        System.out.println("Verified " + (examples.size() - failures.size()) + " examples successfully ("
+                + parallel.size() + " in parallel, " + serial.size() + " serially).");
 
-            while (methodElements.hasNext()) {
-                JsonNode methodNode = methodElements.next();
-                if (methodNode.has("example")) {
-                    String example = methodNode.get("example").asText();
-                    System.out.println("Testing example: " + example);
-
-                    try {
-                        String[] args = parseArgs(example);
-                        // args[0] is "jcli", remove it
-                        if (args.length > 0 && "jcli".equals(args[0])) {
-                            String[] realArgs = new String[args.length - 1];
-                            System.arraycopy(args, 1, realArgs, 0, realArgs.length);
-
-                            // Execute in-process to simplify setup
-                            // Note: This relies on JcliCommand.createCommandLine() logic
-                            CommandLine cmd = JcliCommand.createCommandLine();
-                            int exitCode = cmd.execute(realArgs);
-
-                            if (exitCode != 0) {
-                                failures.add("Failed (Exit Code " + exitCode + "): " + example);
-                            } else {
-                                successCount++;
-                            }
-                        }
-                    } catch (Exception e) {
-                        failures.add("Exception: " + example + " -> " + e.getMessage());
-                    }
+        if (!failures.isEmpty()) {
+            System.err.println("Failures:");
+            failures.forEach(System.err::println);
+        }
+
+        assertTrue(failures.isEmpty(), "There were " + failures.size() + " failed documentation examples.");
+        checkPerformance(summarize(latencies), "documentation", "src/test/resources/perf-baseline.json");
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = NATIVE_PROPERTY, matches = ".+")
+    void testNativeColdStart() throws Exception {
+        List<Example> examples = loadExamples();
+        if (examples == null) {
+            return;
+        }
+        String binary = System.getProperty(NATIVE_PROPERTY);
+        assertTrue(new File(binary).canExecute(), "Not an executable native binary: " + binary);
+
+        // One process at a time, so each measures an uncontended cold start
+        Map<String, List<Long>> latencies = new TreeMap<>();
+        List<String> failures = new ArrayList<>();
+        for (Example example : examples) {
+            List<String> command = new ArrayList<>();
+            command.add(binary);
+            command.addAll(Arrays.asList(example.args()));
+            for (int i = 0; i < iterations(); i++) {
+                long start = System.nanoTime();
+                Process process = new ProcessBuilder(command)
+                        .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                        .redirectError(ProcessBuilder.Redirect.DISCARD)
+                        .start();
+                process.getOutputStream().close();
+                int exitCode = process.waitFor();
+                latencies.computeIfAbsent(example.command(), k -> new ArrayList<>()).add(System.nanoTime() - start);
+                if (exitCode != 0) {
+                    failures.add("Failed (Exit Code " + exitCode + "): " + example.text());
+                    break;
                 }
             }
         }
 
-        System.out.println("Verified " + successCount + " examples successfully.");
-
         if (!failures.isEmpty()) {
             System.err.println("Failures:");
             failures.forEach(System.err::println);
         }
-
         assertTrue(failures.isEmpty(), "There were " + failures.size() + " failed documentation examples.");
+        checkPerformance(summarize(latencies), "documentation-native", "src/test/resources/perf-baseline-native.json");
     }
 
-    // Simple argument parser handling quotes
-    private String[] parseArgs(String command) {
-        List<String> tokens = new ArrayList<>();
-        StringBuilder currentToken = new StringBuilder();
-        boolean inQuotes = false;
-
-        for (int i = 0; i < command.length(); i++) {
-            char c = command.charAt(i);
-            if (c == '"') {
-                inQuotes = !inQuotes;
-            } else if (c == ' ' && !inQuotes) {
-                if (currentToken.length() > 0) {
-                    tokens.add(currentToken.toString());
-                    currentToken.setLength(0);
+    // The first run checks the exit code and warms up; the rest are timed
+    private void measureInProcess(Example example, Map<String, List<Long>> latencies, List<String> failures) {
+        PrintStream discard = new PrintStream(OutputStream.nullOutputStream());
+        PrintWriter discardWriter = new PrintWriter(OutputStream.nullOutputStream());
+        try {
+            for (int i = 0; i <= iterations(); i++) {
+                long start = System.nanoTime();
+                int exitCode = StdIo.with(InputStream.nullInputStream(), discard, discard, () -> {
+                    CommandLine cmd = JcliCommand.createCommandLine(example.args());
+                    cmd.setOut(discardWriter);
+                    cmd.setErr(discardWriter);
+                    return cmd.execute(example.args());
+                });
+                long elapsed = System.nanoTime() - start;
+                if (exitCode != 0) {
+                    failures.add("Failed (Exit Code " + exitCode + "): " + example.text());
+                    return;
+                }
+                if (i > 0) {
+                    latencies.computeIfAbsent(example.command(), k -> Collections.synchronizedList(new ArrayList<>()))
+                            .add(elapsed);
                 }
-            } else {
-                currentToken.append(c);
             }
+        } catch (Exception | LinkageError e) {
+            // Listed with the other failures rather than aborting the whole run
+            failures.add("Exception: " + example.text() + " -> " + e);
         }
-        if (currentToken.length() > 0) {
-            tokens.add(currentToken.toString());
+    }
+
+    // Percentiles in milliseconds, by command name
+    private static Map<String, Map<String, Double>> summarize(Map<String, List<Long>> latencies) {
+        Map<String, Map<String, Double>> summary = new TreeMap<>();
+        latencies.forEach((command, nanos) -> {
+            long[] sorted = nanos.stream().mapToLong(Long::longValue).sorted().toArray();
+            Map<String, Double> percentiles = new LinkedHashMap<>();
+            percentiles.put("p50", percentile(sorted, 50));
+            percentiles.put("p90", percentile(sorted, 90));
+            percentiles.put("p99", percentile(sorted, 99));
+            percentiles.put("samples", (double) sorted.length);
+            summary.put(command, percentiles);
+        });
+        return summary;
+    }
+
+    // Nearest rank
+    private static double percentile(long[] sorted, int percentile) {
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+        return Math.round(sorted[Math.max(0, rank - 1)] / 1_000.0) / 1_000.0;
+    }
+
+    private void checkPerformance(Map<String, Map<String, Double>> summary, String reportName, String defaultBaseline)
+            throws Exception {
+        File report = new File("build/reports/perf/" + reportName + ".json");
+        report.getParentFile().mkdirs();
+        mapper.writerWithDefaultPrettyPrinter().writeValue(report, Map.of("commands", summary));
+        System.out.println("Per-command latency percentiles written to " + report);
+
+        File baseline = new File(System.getProperty("jcli.perf.baseline", defaultBaseline));
+        if (Boolean.getBoolean("jcli.perf.updateBaseline")) {
+            mapper.writerWithDefaultPrettyPrinter().writeValue(baseline, Map.of("commands", summary));
+            System.out.println("Updated baseline " + baseline);
+            return;
+        }
+        if (!baseline.exists()) {
+            System.out.println("No baseline at " + baseline + "; run with -Pjcli.perf.updateBaseline=true to record one.");
+            return;
+        }
+
+        double threshold = Double.parseDouble(System.getProperty("jcli.perf.threshold", "0.5"));
+        double slackMillis = Double.parseDouble(System.getProperty("jcli.perf.slackMillis", "1"));
+        JsonNode expected = mapper.readTree(baseline).path("commands");
+        List<String> regressions = new ArrayList<>();
+        summary.forEach((command, percentiles) -> {
+            JsonNode base = expected.path(command);
+            if (base.isMissingNode()) {
+                return;
+            }
+            double limit = base.path("p50").asDouble() * (1 + threshold) + slackMillis;
+            if (percentiles.get("p50") > limit) {
+                regressions.add(String.format("%s: p50 %.3f ms, baseline %.3f ms (limit %.3f ms)", command,
+                        percentiles.get("p50"), base.path("p50").asDouble(), limit));
+            }
+        });
+
+        if (!regressions.isEmpty()) {
+            System.err.println("Regressions against " + baseline + ":");
+            regressions.forEach(System.err::println);
         }
+        assertTrue(regressions.isEmpty(), regressions.size() + " command(s) regressed against " + baseline);
+    }
+
+    private int iterations() {
+        return Integer.getInteger("jcli.perf.iterations", 3);
+    }
+
+    // null when docs/data.json has not been generated
+    private List<Example> loadExamples() throws Exception {
+        File dataFile = new File("docs/data.json");
+        if (!dataFile.exists()) {
+            System.out.println("docs/data.json not found. Skipping test. Run 'gradle generateDocsJson' first.");
+            return null;
+        }
+
+        List<Example> examples = new ArrayList<>();
+        Iterator<JsonNode> commands = mapper.readTree(dataFile).path("commands").elements();
+        while (commands.hasNext()) {
+            Iterator<JsonNode> methods = commands.next().path("methods").elements();
+            while (methods.hasNext()) {
+                JsonNode methodNode = methods.next();
+                if (methodNode.has("example")) {
+                    String text = methodNode.get("example").asText();
+                    String[] args = TrainingReplay.tokenize(text);
+                    // args[0] is "jcli"; examples that would end the process are skipped
+                    if (args.length > 1 && "jcli".equals(args[0]) && !TrainingReplay.isSkipped(args)) {
+                        examples.add(new Example(text, args[1], Arrays.copyOfRange(args, 1, args.length)));
+                    }
+                }
+            }
+        }
+        return examples;
+    }
 
-        return tokens.toArray(new String[0]);
+    private record Example(String text, String command, String[] args) {
     }
 }
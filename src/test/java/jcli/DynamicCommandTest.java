@@ -3,10 +3,14 @@ package jcli;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import picocli.CommandLine;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
 import java.io.PrintStream;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
@@ -48,4 +52,191 @@ class DynamicCommandTest {
         String output = baos.toString().trim();
         assertTrue(output.contains("20"), "Expected 20 but got: " + output);
     }
+
+    @Test
+    public void testIntegerArgumentsPickTheIntOverload() {
+        String[] args = new String[] { "test-math", "max", "10", "20" };
+        JcliCommand.createCommandLine(args).execute(args);
+        assertEquals("20", baos.toString().trim());
+
+        baos.reset();
+        String[] decimals = new String[] { "test-math", "max", "1.5", "20" };
+        JcliCommand.createCommandLine(decimals).execute(decimals);
+        assertEquals("20.0", baos.toString().trim());
+    }
+
+    @Test
+    public void testFastDispatchRegistersOnlyRequestedCommand() {
+        String[] args = new String[] { "test-math", "max", "10", "20" };
+        CommandLine cmd = JcliCommand.createCommandLine(args);
+
+        assertEquals(1, cmd.getSubcommands().size());
+        cmd.execute(args);
+
+        String output = baos.toString().trim();
+        assertTrue(output.contains("20"), "Expected 20 but got: " + output);
+    }
+
+    @Test
+    public void testEachAppliesMethodToEveryLine() {
+        InputStream originalIn = System.in;
+        System.setIn(new ByteArrayInputStream("abc\nhello\n".getBytes()));
+        try {
+            String[] args = new String[] { "test-string", "--each", "length", "-" };
+            JcliCommand.createCommandLine(args).execute(args);
+        } finally {
+            System.setIn(originalIn);
+        }
+
+        String output = baos.toString().trim();
+        assertEquals("3\n5", output.replace("\r\n", "\n"));
+    }
+
+    @Test
+    public void testParallelEachKeepsInputOrder() {
+        StringBuilder input = new StringBuilder();
+        StringBuilder expected = new StringBuilder();
+        for (int i = 1; i <= 500; i++) {
+            input.append("x".repeat(i)).append('\n');
+            expected.append(i).append('\n');
+        }
+        InputStream originalIn = System.in;
+        System.setIn(new ByteArrayInputStream(input.toString().getBytes()));
+        try {
+            String[] args = new String[] { "test-string", "--each", "--parallel", "4", "length", "-" };
+            JcliCommand.createCommandLine(args).execute(args);
+        } finally {
+            System.setIn(originalIn);
+        }
+
+        String output = baos.toString().trim();
+        assertEquals(expected.toString().trim(), output.replace("\r\n", "\n"));
+    }
+
+    @Test
+    public void testChainedCallUsesPreviousResultAsReceiver() {
+        String[] args = new String[] { "test-string", "concat", "hello", " world", "then", "length" };
+        JcliCommand.createCommandLine(args).execute(args);
+
+        String output = baos.toString().trim();
+        assertEquals("11", output);
+
+        // An escaped then is an argument, not a separator
+        baos.reset();
+        String[] escaped = new String[] { "test-string", "concat", "say ", "\\then", "then", "length" };
+        JcliCommand.createCommandLine(escaped).execute(escaped);
+        assertEquals("8", baos.toString().trim());
+
+        // Steps pick overloads from their arguments like a first call does
+        baos.reset();
+        String[] overloaded = new String[] { "test-string", "concat", "hello", " x", "then", "indexOf", "x" };
+        JcliCommand.createCommandLine(overloaded).execute(overloaded);
+        assertEquals("6", baos.toString().trim());
+    }
+
+    @Test
+    public void testStreamResultIsWrittenPerElementWithSkipAndLimit() {
+        String[] args = new String[] { "test-string", "--skip", "1", "--limit", "2", "lines", "a\nb\nc\nd" };
+        JcliCommand.createCommandLine(args).execute(args);
+
+        String output = baos.toString().trim();
+        assertEquals("b\nc", output.replace("\r\n", "\n"));
+    }
+
+    @Test
+    public void testOutputFormatsWriteArraysElementByElement() {
+        String[] text = new String[] { "test-string", "toCharArray", "ab" };
+        JcliCommand.createCommandLine(text).execute(text);
+        assertEquals("[a, b]", baos.toString().trim());
+
+        baos.reset();
+        String[] json = new String[] { "test-string", "--output", "json", "split", "a,b\"c", "," };
+        JcliCommand.createCommandLine(json).execute(json);
+        assertEquals("[\"a\",\"b\\\"c\"]", baos.toString().trim());
+
+        baos.reset();
+        String[] nul = new String[] { "test-string", "--output", "nul", "split", "a,b", "," };
+        JcliCommand.createCommandLine(nul).execute(nul);
+        assertEquals("a\0b\0", baos.toString());
+
+        baos.reset();
+        String[] raw = new String[] { "test-string", "--output", "raw", "getBytes", "h\u00e9llo" };
+        JcliCommand.createCommandLine(raw).execute(raw);
+        assertArrayEquals("h\u00e9llo".getBytes(java.nio.charset.StandardCharsets.UTF_8), baos.toByteArray());
+    }
+
+    @Test
+    public void testRawOutputKeepsMixedSizeWritesInOrder() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        jcli.io.ResultWriter writer = new jcli.io.ResultWriter(new PrintStream(bytes),
+                jcli.io.OutputFormat.RAW, 0, -1);
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        // Small, then larger than the grown buffer but not its capacity, then
+        // larger than its capacity
+        for (int size : new int[] { 100, 20_000, 250_000, 300_000, 7 }) {
+            byte[] chunk = new byte[size];
+            java.util.Arrays.fill(chunk, (byte) size);
+            writer.write(chunk);
+            expected.write(chunk);
+        }
+        writer.flush();
+        assertArrayEquals(expected.toByteArray(), bytes.toByteArray());
+    }
+
+    @Test
+    public void testJsonQueryEvaluatesEveryQueryPerNdjsonRecord() {
+        InputStream originalIn = System.in;
+        System.setIn(new ByteArrayInputStream("{\"id\":1,\"level\":\"warn\"}\n\n{\"id\":2}\n".getBytes()));
+        try {
+            String[] args = new String[] { "json", "--ndjson", "-q", "$.id", "-q", "$.level", "--output", "jsonl" };
+            JcliCommand.createCommandLine(args).execute(args);
+        } finally {
+            System.setIn(originalIn);
+        }
+
+        String output = baos.toString().trim();
+        assertEquals("{\"$.id\":1,\"$.level\":\"warn\"}\n{\"$.id\":2,\"$.level\":null}", output);
+    }
+
+    @Test
+    public void testScriptRunsEveryRowInOrderAndReportsFailures() {
+        String script = "# lengths\n"
+                + "test-string length hello\n"
+                + "jcli test-string length 'a b c'\n"
+                + "no-such-command run\n"
+                + "test-string length \"\"\n";
+        InputStream originalIn = System.in;
+        System.setIn(new ByteArrayInputStream(script.getBytes()));
+        int exitCode;
+        try {
+            String[] args = new String[] { "--script", "-", "--jobs", "2" };
+            exitCode = JcliCommand.createCommandLine(args).execute(args);
+        } finally {
+            System.setIn(originalIn);
+        }
+
+        assertEquals(1, exitCode);
+        assertEquals("5\n5\n0", baos.toString().trim().replace("\r\n", "\n"));
+        assertTrue(baes.toString().contains("Script line 4 failed"), "Expected a report for line 4 but got: " + baes);
+    }
+
+    @Test
+    public void testInvokeReturnsResultsFromManyThreads() throws Exception {
+        java.util.concurrent.ExecutorService pool = java.util.concurrent.Executors.newFixedThreadPool(4);
+        try {
+            java.util.List<java.util.concurrent.Future<Object>> results = new java.util.ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                String text = "x".repeat(i);
+                results.add(pool.submit(() -> Jcli.invoke("test-string", "length", text)));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                assertEquals(i, results.get(i).get());
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        assertEquals(20, ((Number) Jcli.invoke("test-math", "max", "10", "20")).intValue());
+        assertEquals("", baos.toString());
+    }
 }
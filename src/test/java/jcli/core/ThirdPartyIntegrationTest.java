@@ -4,6 +4,7 @@ import jcli.config.CommandConfig;
 import jcli.core.InstanceStrategy;
 import jcli.core.ReflectionCommand;
 import jcli.core.UniversalCommand;
+import jcli.io.OutputFormat;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
@@ -95,6 +96,114 @@ public class ThirdPartyIntegrationTest {
         assertEquals("normal", ReflectionCommand.resolveArgument("normal"));
     }
 
+    @Test
+    public void testResolveInputKeepsFileAsCharSequence(@TempDir Path tempDir) throws Exception {
+        Path file = tempDir.resolve("text.txt");
+        Files.writeString(file, "  h\u00e9llo w\u00f6rld\n");
+
+        CharSequence view = ReflectionCommand.resolveInput("@" + file.toAbsolutePath());
+        Assertions.assertFalse(view instanceof String);
+        assertEquals(11, view.length());
+        assertEquals("w\u00f6rld", view.subSequence(6, 11).toString());
+
+        // Only CharSequence parameters receive the view itself
+        Assertions.assertSame(view, ReflectionCommand.convert(CharSequence.class, view));
+        assertEquals("h\u00e9llo w\u00f6rld", ReflectionCommand.convert(Object.class, view));
+    }
+
+    @Test
+    public void testPrimitiveArrayParsing() {
+        Assertions.assertArrayEquals(new int[] { 1, -2, 3 }, (int[]) ReflectionCommand.convert(int[].class, "[1, -2, \"3\"]"));
+        Assertions.assertArrayEquals(new long[] { Long.MIN_VALUE, 7 },
+                (long[]) ReflectionCommand.convert(long[].class, "-9223372036854775808,7"));
+        Assertions.assertArrayEquals(new double[] { 0.1, 1e3, -2.5 },
+                (double[]) ReflectionCommand.convert(double[].class, "[0.1, 1e3, -2.5]"));
+        Assertions.assertThrows(NumberFormatException.class, () -> ReflectionCommand.convert(int[].class, "[1, 2147483648]"));
+
+        // Large enough to be parsed in parallel chunks
+        int size = PrimitiveArrays.PARALLEL_THRESHOLD;
+        StringBuilder text = new StringBuilder("[");
+        long[] expected = new long[size];
+        for (int i = 0; i < size; i++) {
+            expected[i] = i * 31L - 1000;
+            text.append(i == 0 ? "" : ", ").append(expected[i]);
+        }
+        text.append(']');
+        Assertions.assertArrayEquals(expected, (long[]) ReflectionCommand.convert(long[].class, text.toString()));
+    }
+
+    @Test
+    public void testConverterRegistryAndPlans() throws Exception {
+        assertEquals(new java.math.BigDecimal("1.50"), ReflectionCommand.convert(java.math.BigDecimal.class, "1.50"));
+        assertEquals(java.time.Duration.ofSeconds(90), ReflectionCommand.convert(java.time.Duration.class, "PT1M30S"));
+
+        // Varargs of a primitive type are packed into the primitive array
+        MethodTable.Candidate of = MethodTable.of(java.util.stream.IntStream.class).find("of", 3).get();
+        Assertions.assertSame(of.plan(), of.plan());
+        Object[] typedArgs = of.plan().convert(new String[] { "4", "5", "6" });
+        Assertions.assertArrayEquals(new int[] { 4, 5, 6 }, (int[]) typedArgs[0]);
+
+        Converters.register(java.util.Locale.class, java.util.Locale::forLanguageTag);
+        assertEquals(java.util.Locale.forLanguageTag("de-CH"), ReflectionCommand.convert(java.util.Locale.class, "de-CH"));
+    }
+
+    @Test
+    public void testOverloadsAreScoredByArgumentFit() {
+        java.util.List<MethodTable.Candidate> max = MethodTable.of(Math.class).candidates("max", 2);
+        assertEquals(int.class, OverloadResolver.resolve("max", max, new String[] { "10", "20" }).parameterTypes()[0]);
+        assertEquals(long.class,
+                OverloadResolver.resolve("max", max, new String[] { "10", "3000000000" }).parameterTypes()[0]);
+        assertEquals(double.class, OverloadResolver.resolve("max", max, new String[] { "10", "2.5" }).parameterTypes()[0]);
+
+        IllegalArgumentException error = Assertions.assertThrows(IllegalArgumentException.class,
+                () -> OverloadResolver.resolve("max", max, new String[] { "10", "ten" }));
+        Assertions.assertTrue(error.getMessage().contains("max(int, int): argument 2 'ten' is not a valid int"),
+                error.getMessage());
+
+        Assertions.assertTrue(Fits.fitsRange("-9223372036854775808", Long.MIN_VALUE, Long.MAX_VALUE));
+        Assertions.assertFalse(Fits.fitsRange("2147483648", Integer.MIN_VALUE, Integer.MAX_VALUE));
+        Assertions.assertEquals(Fits.NONE, Fits.of(int[].class).score("1,2,x"));
+    }
+
+    @Test
+    public void testReceiverConstructionAndReuse() {
+        assertEquals(new java.math.BigInteger("12"), ReflectionCommand.createInstance(java.math.BigInteger.class, "12"));
+        // String constructor first, numeric ones only for integer text
+        assertEquals("5", ReflectionCommand.createInstance(StringBuilder.class, "5").toString());
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> ReflectionCommand.createInstance(java.util.ArrayList.class, "x"));
+
+        Receivers bigIntegers = Receivers.of(java.math.BigInteger.class);
+        Object first = bigIntegers.cached(null, "42", text -> bigIntegers.create(text, null));
+        Assertions.assertSame(first, bigIntegers.cached(null, "42", text -> bigIntegers.create(text, null)));
+
+        // Mutable receivers are never shared
+        Receivers builders = Receivers.of(StringBuilder.class);
+        Assertions.assertNotSame(builders.cached(null, "a", text -> builders.create(text, null)),
+                builders.cached(null, "a", text -> builders.create(text, null)));
+    }
+
+    @Test
+    public void testResultCacheForPureMethods(@TempDir Path tempDir) {
+        CommandConfig math = new CommandConfig("Math", "java.lang.Math", InstanceStrategy.HYBRID, null, null,
+                Collections.emptyList(), null, java.util.Set.of("*"));
+        Assertions.assertTrue(math.isPure("pow"));
+        Assertions.assertFalse(math.isPure("random"));
+
+        java.nio.charset.Charset utf8 = java.nio.charset.StandardCharsets.UTF_8;
+        String key = ResultCache.key(math, "pow", new String[] { "2", "10" }, 0, -1, OutputFormat.TEXT, utf8);
+        Assertions.assertNotNull(key);
+        Assertions.assertNotEquals(key, ResultCache.key(math, "pow", new String[] { "2", "10" }, 0, -1, OutputFormat.JSON, utf8));
+        Assertions.assertNotEquals(key, ResultCache.key(math, "pow", new String[] { "2", "1", "0" }, 0, -1, OutputFormat.TEXT, utf8));
+        Assertions.assertNull(ResultCache.key(math, "random", new String[0], 0, -1, OutputFormat.TEXT, utf8));
+        Assertions.assertNull(ResultCache.key(math, "abs", new String[] { "@numbers.txt" }, 0, -1, OutputFormat.TEXT, utf8));
+
+        ResultCache cache = new ResultCache(tempDir, 1 << 20);
+        Assertions.assertNull(cache.find(key));
+        cache.store(key, "1024.0\n".getBytes(utf8));
+        Assertions.assertArrayEquals("1024.0\n".getBytes(utf8), cache.find(key));
+    }
+
     private String captureOutput(Runnable task) {
         ByteArrayOutputStream bo = new ByteArrayOutputStream();
         PrintStream oldOut = System.out;